@@ -1,3 +1,5 @@
+# NOTE: superseded by inventory-service ForecastEngine/ForecastPublisher (forecast.engine.enabled=true).
+# Kept for comparison runs with replay_benchmark.py; do not run both at once or predictions are doubled.
 from confluent_kafka import Consumer, Producer
 import json
 import time
@@ -0,0 +1,37 @@
+"""Replays a synthetic order stream through brain.py's per-message logic and times it.
+
+Same stream as the benchmarks module's ForecastReplayBenchmark (JMH):
+order i -> SKU-(i % 100), quantity 1 + i % 5, one order every 10 ms.
+No Kafka needed: this measures only the model work done per message.
+"""
+import sys
+import time
+
+import pandas as pd
+from sklearn.linear_model import LinearRegression
+
+TOTAL = int(sys.argv[1]) if len(sys.argv) > 1 else 20000
+REPORT_EVERY = max(TOTAL // 10, 1)
+
+data_store = []
+cumulative_sales = 0
+window_start = time.perf_counter()
+
+print("orders_seen,ms_per_event")
+for i in range(TOTAL):
+    qty = 1 + i % 5
+    current_time_sec = max(int(i * 10 / 1000), 1)
+
+    # --- identical to brain.py ---
+    cumulative_sales += qty
+    data_store.append([current_time_sec, cumulative_sales])
+    if len(data_store) >= 3:
+        df = pd.DataFrame(data_store, columns=['SecondsElapsed', 'TotalSold'])
+        model = LinearRegression()
+        model.fit(df[['SecondsElapsed']], df['TotalSold'])
+        _ = model.coef_[0] * 60
+
+    if (i + 1) % REPORT_EVERY == 0:
+        elapsed = time.perf_counter() - window_start
+        print(f"{i + 1},{elapsed * 1000 / REPORT_EVERY:.3f}")
+        window_start = time.perf_counter()
@@ -0,0 +1,37 @@
+package com.predictive.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Runs every microbenchmark in this package (or whatever JMH command-line options select) with the GC profiler,
+// so each result carries both ns/op and gc.alloc.rate.norm (bytes/op), and writes them as JSON for diffing across
+// commits (e.g. with jmh.morethan.io or a small jq script).
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Path output = Path.of(System.getProperty("jmh.output", "target/jmh-results.json"));
+        Files.createDirectories(output.toAbsolutePath().getParent());
+
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(BenchmarkRunner.class.getPackageName() + "\\..*Benchmark");
+        }
+        options.addProfiler(GCProfiler.class);
+        options.resultFormat(ResultFormatType.JSON);
+        options.result(output.toString());
+
+        new Runner(options.build()).run();
+        System.out.println("JMH results written to " + output.toAbsolutePath());
+    }
+}
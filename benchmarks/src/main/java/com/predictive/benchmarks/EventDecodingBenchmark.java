@@ -0,0 +1,106 @@
+package com.predictive.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.predictive.inventoryservice.JsonEventDeserializer;
+import com.predictive.inventoryservice.KafkaConfig;
+import com.predictive.inventoryservice.OrderEvent;
+import com.predictive.inventoryservice.PipelineMetrics;
+import com.predictive.inventoryservice.RestockEvent;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Old listener path (StringDeserializer -> ObjectMapper.readValue(String)) vs the typed byte[] path from KafkaConfig,
+// for decoding an order and encoding a restock. Run main(): the GC profiler adds gc.alloc.rate.norm (bytes/op).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventDecodingBenchmark {
+
+    private final byte[] orderBytes = "{\"sku\":\"SKU-42\",\"quantity\":3}".getBytes(StandardCharsets.UTF_8);
+    private final RestockEvent restock = new RestockEvent("SKU-42", 100);
+
+    private final StringDeserializer stringDeserializer = new StringDeserializer();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonEventDeserializer<OrderEvent> orderDeserializer =
+            new JsonEventDeserializer<>(objectMapper, OrderEvent.class, order -> order.getSku() != null);
+    private final RecordHeaders headers = new RecordHeaders(); // the consumer always has a Headers instance
+    private Deserializer<Object> typedDeserializer;
+    private Deserializer<Object> timedDeserializer;
+    private Serializer<Object> typedSerializer;
+
+    @Setup
+    public void setUp() {
+        KafkaConfig kafkaConfig = new KafkaConfig();
+        typedDeserializer = kafkaConfig.valueDeserializer();
+        typedDeserializer.configure(Map.of(), false);
+        // What the service actually runs: the same decoders with the per-stage histogram around them
+        timedDeserializer = kafkaConfig.valueDeserializer(
+                new PipelineMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)));
+        timedDeserializer.configure(Map.of(), false);
+        typedSerializer = kafkaConfig.valueSerializer();
+    }
+
+    @Benchmark
+    public OrderEvent decodeViaString() throws Exception {
+        String rawJson = stringDeserializer.deserialize("order-events", orderBytes);
+        return objectMapper.readValue(rawJson, OrderEvent.class);
+    }
+
+    @Benchmark
+    public OrderEvent decodeReaderOnly() {
+        return orderDeserializer.deserialize("order-events", orderBytes);
+    }
+
+    @Benchmark
+    public Object decodeTypedBytes() {
+        return typedDeserializer.deserialize("order-events", headers, orderBytes);
+    }
+
+    @Benchmark
+    public Object decodeTypedBytesTimed() {
+        return timedDeserializer.deserialize("order-events", headers, orderBytes);
+    }
+
+    @Benchmark
+    public byte[] encodeViaStringFormat() {
+        String restockEvent = String.format("{\"sku\":\"%s\", \"quantity\":%d}", restock.getSku(), restock.getQuantity());
+        return restockEvent.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeTypedWriter() {
+        return typedSerializer.serialize("warehouse-restock", headers, restock);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EventDecodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
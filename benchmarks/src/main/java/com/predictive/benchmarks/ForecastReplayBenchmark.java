@@ -0,0 +1,70 @@
+package com.predictive.benchmarks;
+
+import com.predictive.inventoryservice.ForecastEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Replays the same synthetic order stream as ai-forecasting-service/replay_benchmark.py
+// (order i -> SKU-(i % 100), quantity 1 + i % 5, one order every 10 ms) through ForecastEngine.
+// Compare the reported time per order with the Python script's "ms per event" column.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ForecastReplayBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int ordersAlreadySeen;
+
+    private ForecastEngine engine;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new ForecastEngine(300);
+        for (next = 0; next < ordersAlreadySeen; next++) {
+            replay(next);
+        }
+    }
+
+    // One consumed order (the work brain.py does per message, minus the refit)
+    @Benchmark
+    public void recordOrder() {
+        replay(next++);
+    }
+
+    // One publish tick after 100 fresh orders
+    @Benchmark
+    public Map<String, Double> recordHundredOrdersAndPublish() {
+        for (int i = 0; i < 100; i++) {
+            replay(next++);
+        }
+        return engine.drainUpdatedVelocities();
+    }
+
+    private void replay(int i) {
+        engine.record("SKU-" + (i % 100), 1 + i % 5, i * 10L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ForecastReplayBenchmark.class.getSimpleName()).build()).run();
+    }
+}
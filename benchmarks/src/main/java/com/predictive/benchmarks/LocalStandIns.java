@@ -0,0 +1,120 @@
+package com.predictive.benchmarks;
+
+import com.predictive.inventoryservice.InventoryServiceApplication;
+import com.predictive.orderservice.OrderServiceApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+// In-process replacements for the docker-compose infrastructure: an embedded KRaft Kafka broker and an embedded
+// Postgres, plus helpers that boot the real services against them.
+// Both service jars ship an application.properties, so each service's own file is read from its jar and passed in
+// explicitly (with the infrastructure addresses swapped), and Spring's classpath lookup is switched off.
+final class LocalStandIns implements AutoCloseable {
+
+    private final EmbeddedKafkaKraftBroker kafka;
+    private final EmbeddedPostgres postgres;
+
+    private LocalStandIns(EmbeddedKafkaKraftBroker kafka, EmbeddedPostgres postgres) {
+        this.kafka = kafka;
+        this.postgres = postgres;
+    }
+
+    static LocalStandIns postgresOnly() {
+        return new LocalStandIns(null, startPostgres());
+    }
+
+    static LocalStandIns kafkaAndPostgres() {
+        EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, 1);
+        broker.brokerProperty("group.initial.rebalance.delay.ms", "0");
+        broker.brokerProperty("auto.create.topics.enable", "true");
+        broker.afterPropertiesSet();
+        return new LocalStandIns(broker, startPostgres());
+    }
+
+    ConfigurableApplicationContext startInventoryService(Map<String, Object> overrides) {
+        Map<String, Object> properties = serviceProperties(InventoryServiceApplication.class);
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+        properties.put("spring.datasource.username", "postgres");
+        properties.put("spring.datasource.password", "postgres");
+        properties.put("spring.jpa.show-sql", false);
+        if (kafka != null) {
+            properties.put("spring.kafka.bootstrap-servers", kafka.getBrokersAsString());
+        } else {
+            // No broker: nothing may try to consume or publish
+            properties.put("spring.kafka.listener.auto-startup", false);
+            properties.put("inventory.cache.invalidation.enabled", false);
+            properties.put("inventory.stock-topic.enabled", false);
+            properties.put("forecast.engine.enabled", false);
+            properties.put("restock.enabled", false);
+        }
+        properties.putAll(overrides);
+        return start(InventoryServiceApplication.class, properties);
+    }
+
+    ConfigurableApplicationContext startOrderService(Map<String, Object> overrides) {
+        Map<String, Object> properties = serviceProperties(OrderServiceApplication.class);
+        properties.put("server.port", 0);
+        properties.put("spring.kafka.bootstrap-servers", kafka.getBrokersAsString());
+        // The inventory jar puts JPA on this classpath too; order-service has no database
+        properties.put("spring.autoconfigure.exclude", String.join(",",
+                "org.springframework.boot.jdbc.autoconfigure.DataSourceAutoConfiguration",
+                "org.springframework.boot.flyway.autoconfigure.FlywayAutoConfiguration",
+                "org.springframework.boot.hibernate.autoconfigure.HibernateJpaAutoConfiguration",
+                "org.springframework.boot.data.jpa.autoconfigure.DataJpaRepositoriesAutoConfiguration"));
+        properties.putAll(overrides);
+        return start(OrderServiceApplication.class, properties);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (kafka != null) {
+            kafka.destroy();
+        }
+        postgres.close();
+    }
+
+    private static ConfigurableApplicationContext start(Class<?> application, Map<String, Object> properties) {
+        properties.put("spring.config.name", "benchmark-explicit-properties-only");
+        return new SpringApplicationBuilder(application).properties(properties).run();
+    }
+
+    // The application.properties packaged next to the given application class (its own jar or classes dir)
+    private static Map<String, Object> serviceProperties(Class<?> application) {
+        try {
+            URL base = application.getProtectionDomain().getCodeSource().getLocation();
+            URL file = base.getPath().endsWith(".jar")
+                    ? new URL("jar:" + base + "!/application.properties")
+                    : new URL(base, "application.properties");
+            Properties properties = new Properties();
+            try (Reader reader = new InputStreamReader(file.openStream(), StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            Map<String, Object> result = new HashMap<>();
+            properties.forEach((key, value) -> result.put((String) key, value));
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read application.properties of " + application.getSimpleName(), e);
+        }
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start embedded Postgres", e);
+        }
+    }
+}
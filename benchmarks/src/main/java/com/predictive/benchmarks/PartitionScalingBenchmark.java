@@ -0,0 +1,142 @@
+package com.predictive.benchmarks;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// How order-events throughput scales with partitions, in the production topology: orders keyed by SKU
+// (OrderController) and a batch listener container with concurrency = partitions (InventoryListener).
+// Each record costs a fixed 1 ms, standing in for the database round trip, so the result shows the parallelism
+// the partitions buy rather than the listener's own cost. Score is time per order; lower is better.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PartitionScalingBenchmark {
+
+    private static final int ORDERS = 4_096;
+    private static final int SKUS = 64;
+    private static final long WORK_NANOS_PER_ORDER = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"1", "4", "16"})
+    public int partitions;
+
+    private EmbeddedKafkaKraftBroker broker;
+    private ConcurrentMessageListenerContainer<String, String> container;
+    private KafkaProducer<String, String> producer;
+    private final Semaphore consumed = new Semaphore(0);
+    private String topic;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        topic = "order-events-p" + partitions;
+        broker = new EmbeddedKafkaKraftBroker(1, 1);
+        broker.brokerProperty("group.initial.rebalance.delay.ms", "0");
+        broker.afterPropertiesSet();
+        broker.addTopics(new NewTopic(topic, partitions, (short) 1));
+
+        BatchMessageListener<String, String> listener = records -> {
+            records.forEach(record -> LockSupport.parkNanos(WORK_NANOS_PER_ORDER));
+            consumed.release(records.size());
+        };
+        ContainerProperties containerProperties = new ContainerProperties(topic);
+        containerProperties.setGroupId("partition-scaling");
+        containerProperties.setMessageListener(listener);
+        container = new ConcurrentMessageListenerContainer<>(new DefaultKafkaConsumerFactory<>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+                ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100,
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class)), containerProperties);
+        container.setConcurrency(partitions);
+        container.start();
+
+        producer = new KafkaProducer<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.LINGER_MS_CONFIG, 5));
+        // Only measure once every worker owns its partition, otherwise the first consumer to join
+        // briefly processes everything on its own
+        awaitAssignment();
+        awaitLeaders();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        producer.close();
+        container.stop();
+        broker.destroy();
+    }
+
+    // One burst of orders, timed until the listeners have worked through all of it
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void produceAndConsume() throws InterruptedException {
+        for (int i = 0; i < ORDERS; i++) {
+            String sku = "SKU-" + (i % SKUS);
+            producer.send(new ProducerRecord<>(topic, sku, sku + ":" + i / SKUS));
+        }
+        producer.flush();
+        if (!consumed.tryAcquire(ORDERS, 60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Orders were not consumed within 60s");
+        }
+    }
+
+    private void awaitAssignment() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (container.getContainers().stream().allMatch(child -> child.getAssignedPartitions().size() == 1)
+                    && container.getAssignedPartitions().size() == partitions) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new IllegalStateException("Partitions were not spread across " + partitions + " consumers");
+    }
+
+    // A freshly created topic can briefly report partitions without a leader; producing then trips the idempotent producer
+    private void awaitLeaders() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            List<PartitionInfo> info = producer.partitionsFor(topic);
+            if (info.size() == partitions && info.stream().allMatch(partition -> partition.leader() != null && !partition.leader().isEmpty())) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("No leader for every partition of " + topic);
+    }
+}
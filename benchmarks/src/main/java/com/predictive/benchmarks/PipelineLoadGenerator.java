@@ -0,0 +1,395 @@
+package com.predictive.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.predictive.orderservice.StockView;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.SimpleMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// End-to-end load test of the real pipeline: HTTP bulk orders -> order-service -> Kafka -> inventory-service
+// -> Postgres -> WebSocket frame, with both services booted in-process against embedded Kafka and Postgres.
+//
+// Closed-loop clients post NDJSON batches to /api/orders/bulk and time each Kafka-acked response (ingest latency).
+// Alongside them a probe places one order for a never-ordered SKU every few ms and times how long it takes to show
+// up in a /topic/inventory frame (end-to-end latency, including the broadcaster's frame interval).
+// Stock admission is on, as in production: every SKU is onboarded on inventory-service before the run (the load
+// SKUs with stock they cannot sell out of), and the run starts once order-service's stock view has them all.
+// Results (p50/p99/p999, throughput, how long the consumers needed to catch up) go to target/load-results.json
+// tagged with the commit, so runs can be compared before and after a change.
+//
+// Arguments are key=value pairs, see DEFAULTS.
+public final class PipelineLoadGenerator {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "warmup-seconds", "10",
+            "duration-seconds", "30",
+            "clients", "8",
+            "batch", "500",
+            "skus", "2000",
+            "partitions", "16",
+            "concurrency", "4",
+            "probe-interval-ms", "20",
+            "drain-timeout-seconds", "120",
+            "output", "target/load-results.json");
+
+    private static final String LOAD_PREFIX = "LOAD-";
+    private static final String PROBE_PREFIX = "PROBE-";
+    private static final int LOAD_STOCK = 1_000_000_000;
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<String, String> config;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    private final Histogram ingestMicros = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Histogram endToEndMicros = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Map<String, Long> probesInFlight = new ConcurrentHashMap<>();
+    private final AtomicLong ordersAccepted = new AtomicLong();
+    private final AtomicLong measuredOrders = new AtomicLong();
+    private final AtomicLong measuredRequests = new AtomicLong();
+    private final AtomicLong rejectedRequests = new AtomicLong();
+    private final AtomicLong probeSequence = new AtomicLong();
+    private long probeSkus;
+
+    private volatile String lastRejection;
+    private volatile long measureFromNanos = Long.MAX_VALUE;
+    private volatile long stopAtNanos = Long.MAX_VALUE;
+
+    PipelineLoadGenerator(Map<String, String> config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int status = 1;
+        try {
+            Map<String, Object> results = new PipelineLoadGenerator(parse(args)).run();
+            System.out.println(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(results));
+            status = 0;
+        } finally {
+            System.exit(status); // the embedded broker leaves non-daemon threads behind
+        }
+    }
+
+    static Map<String, String> parse(String... args) {
+        Map<String, String> config = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0 || !DEFAULTS.containsKey(arg.substring(0, equals))) {
+                throw new IllegalArgumentException("Unknown argument '" + arg + "', expected one of " + DEFAULTS.keySet());
+            }
+            config.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        return config;
+    }
+
+    Map<String, Object> run() throws Exception {
+        Map<String, Object> quiet = Map.of("logging.level.org.apache.kafka", "WARN");
+
+        try (LocalStandIns standIns = LocalStandIns.kafkaAndPostgres();
+             ConfigurableApplicationContext orderService = standIns.startOrderService(merge(quiet,
+                     Map.of("orders.topic.partitions", number("partitions"))));
+             ConfigurableApplicationContext inventoryService = standIns.startInventoryService(merge(quiet,
+                     Map.of("inventory.orders.concurrency", number("concurrency"))))) {
+
+            URI orders = URI.create("http://localhost:" + port(orderService) + "/api/orders");
+            // One probe SKU per probe the run can send
+            probeSkus = (number("warmup-seconds") + number("duration-seconds")) * 1000L / number("probe-interval-ms") + 1;
+            onboard(URI.create("http://localhost:" + port(inventoryService) + "/api/inventory/skus"),
+                    orderService.getBean(StockView.class));
+            StompSession frames = subscribe(port(inventoryService));
+            MeterRegistry inventoryMeters = inventoryService.getBean(MeterRegistry.class);
+
+            ExecutorService clients = Executors.newFixedThreadPool(number("clients"));
+            ScheduledExecutorService probe = Executors.newSingleThreadScheduledExecutor();
+            long start = System.nanoTime();
+            measureFromNanos = start + TimeUnit.SECONDS.toNanos(number("warmup-seconds"));
+            stopAtNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(number("duration-seconds"));
+
+            List<Future<?>> loadClients = new ArrayList<>();
+            for (int i = 0; i < number("clients"); i++) {
+                int client = i;
+                loadClients.add(clients.submit(() -> postBatches(orders, client)));
+            }
+            probe.scheduleAtFixedRate(() -> sendProbe(orders), 0, number("probe-interval-ms"), TimeUnit.MILLISECONDS);
+
+            sleepUntil(measureFromNanos);
+            double consumedAtStart = consumed(inventoryMeters);
+            sleepUntil(stopAtNanos);
+            double consumedAtEnd = consumed(inventoryMeters);
+
+            probe.shutdown();
+            clients.shutdown();
+            clients.awaitTermination(1, TimeUnit.MINUTES);
+            probe.awaitTermination(10, TimeUnit.SECONDS);
+            for (Future<?> loadClient : loadClients) {
+                loadClient.get(); // surfaces a client that died instead of silently reporting less load
+            }
+
+            // How long until inventory-service has applied everything order-service acked (consumer lag)
+            long drainStart = System.nanoTime();
+            long drainDeadline = drainStart + TimeUnit.SECONDS.toNanos(number("drain-timeout-seconds"));
+            while (consumed(inventoryMeters) < ordersAccepted.get() && System.nanoTime() < drainDeadline) {
+                Thread.sleep(50);
+            }
+            double drainSeconds = (System.nanoTime() - drainStart) / 1e9;
+            Thread.sleep(500); // last frames for the final probes
+            frames.disconnect();
+
+            double seconds = number("duration-seconds");
+            Map<String, Object> results = new LinkedHashMap<>();
+            results.put("benchmark", "pipeline-load");
+            results.put("timestamp", Instant.now().toString());
+            results.put("commit", commit());
+            results.put("config", config);
+            results.put("ingest", Map.of(
+                    "requests", measuredRequests.get(),
+                    "rejectedRequests", rejectedRequests.get(),
+                    "lastRejection", String.valueOf(lastRejection),
+                    "orders", measuredOrders.get(),
+                    "ordersPerSecond", measuredOrders.get() / seconds,
+                    "latencyMs", percentiles(ingestMicros)));
+            results.put("pipeline", Map.of(
+                    "ordersConsumed", (long) (consumedAtEnd - consumedAtStart),
+                    "ordersPerSecond", (consumedAtEnd - consumedAtStart) / seconds,
+                    "ordersAcceptedTotal", ordersAccepted.get(),
+                    "ordersConsumedTotal", (long) consumed(inventoryMeters),
+                    "drainSeconds", drainSeconds));
+            results.put("endToEnd", Map.of(
+                    "probes", endToEndMicros.getTotalCount(),
+                    "probesMissing", probesInFlight.size(),
+                    "latencyMs", percentiles(endToEndMicros)));
+
+            Path output = Path.of(config.get("output"));
+            Files.createDirectories(output.toAbsolutePath().getParent());
+            mapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), results);
+            return results;
+        }
+    }
+
+    // Closed loop: the next batch goes out when the previous one has been acked by Kafka
+    private void postBatches(URI orders, int client) {
+        Random random = new Random(client);
+        int batch = number("batch");
+        int skus = number("skus");
+        try {
+            while (System.nanoTime() < stopAtNanos) {
+                StringBuilder body = new StringBuilder(batch * 40);
+                for (int i = 0; i < batch; i++) {
+                    body.append("{\"sku\":\"").append(LOAD_PREFIX).append(random.nextInt(skus))
+                            .append("\",\"quantity\":").append(1 + random.nextInt(3)).append("}\n");
+                }
+                HttpRequest request = HttpRequest.newBuilder(orders.resolve("orders/bulk"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                        .build();
+
+                long sent = System.nanoTime();
+                HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                long received = System.nanoTime();
+
+                boolean accepted = response.statusCode() == 200;
+                if (accepted) {
+                    ordersAccepted.addAndGet(batch);
+                }
+                if (sent >= measureFromNanos && received <= stopAtNanos) {
+                    measuredRequests.incrementAndGet();
+                    if (accepted) {
+                        measuredOrders.addAndGet(batch);
+                        ingestMicros.recordValue(Math.min((received - sent) / 1000, HIGHEST_TRACKABLE_MICROS));
+                    } else {
+                        rejectedRequests.incrementAndGet();
+                        lastRejection = response.statusCode() + " " + response.body();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Load client " + client + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Every load SKU with stock for the whole run, one unit of every probe SKU; returns once order-service can
+    // admit orders for all of them
+    private void onboard(URI skus, StockView stockView) throws InterruptedException {
+        Map<String, Integer> stock = new LinkedHashMap<>();
+        for (int i = 0; i < number("skus"); i++) {
+            stock.put(LOAD_PREFIX + i, LOAD_STOCK);
+        }
+        for (long i = 1; i <= probeSkus; i++) {
+            stock.put(PROBE_PREFIX + i, 1);
+        }
+        List<CompletableFuture<HttpResponse<Void>>> created = new ArrayList<>(stock.size());
+        stock.forEach((sku, quantity) -> created.add(http.sendAsync(
+                HttpRequest.newBuilder(URI.create(skus + "?sku=" + sku + "&quantity=" + quantity))
+                        .POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.discarding())));
+        for (CompletableFuture<HttpResponse<Void>> response : created) {
+            int status = response.join().statusCode();
+            if (status != 201) {
+                throw new IllegalStateException("Onboarding a SKU failed with " + status);
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!stockView.isReady() || !stock.keySet().stream().allMatch(sku -> stockView.available(sku) > 0)) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("order-service did not see every onboarded SKU within 60s");
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private void sendProbe(URI orders) {
+        long sequence = probeSequence.incrementAndGet();
+        if (sequence > probeSkus) {
+            return; // every probe SKU has had its order
+        }
+        String sku = PROBE_PREFIX + sequence;
+        HttpRequest request = HttpRequest.newBuilder(orders.resolve("orders/place?sku=" + sku + "&quantity=1"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        probesInFlight.put(sku, System.nanoTime());
+        http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenAccept(response -> {
+            if (response.statusCode() == 200) {
+                ordersAccepted.incrementAndGet();
+            } else {
+                probesInFlight.remove(sku);
+            }
+        });
+    }
+
+    private void onInventoryFrame(byte[] payload) {
+        long received = System.nanoTime();
+        try {
+            for (JsonNode item : mapper.readTree(payload).path("items")) {
+                String sku = item.path("sku").asText();
+                if (sku.startsWith(PROBE_PREFIX)) {
+                    Long sent = probesInFlight.remove(sku);
+                    if (sent != null && sent >= measureFromNanos && sent <= stopAtNanos) {
+                        endToEndMicros.recordValue(Math.min((received - sent) / 1000, HIGHEST_TRACKABLE_MICROS));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable inventory frame", e);
+        }
+    }
+
+    private StompSession subscribe(int inventoryPort) throws Exception {
+        // Frames carry one delta per SKU touched in the interval; allow far more than the 8 KB default
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        container.setDefaultMaxTextMessageBufferSize(16 * 1024 * 1024);
+        WebSocketStompClient stompClient = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient(container)))));
+        stompClient.setInboundMessageSizeLimit(Integer.MAX_VALUE);
+        stompClient.setMessageConverter(new SimpleMessageConverter()); // hand over the raw JSON bytes
+
+        StompSession session = stompClient.connectAsync("http://localhost:" + inventoryPort + "/ws",
+                new StompSessionHandlerAdapter() {
+                }).get(10, TimeUnit.SECONDS);
+        session.subscribe("/topic/inventory", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                onInventoryFrame((byte[]) payload);
+            }
+        });
+        return session;
+    }
+
+    private int number(String key) {
+        return Integer.parseInt(config.get(key));
+    }
+
+    private static Map<String, Object> merge(Map<String, Object> first, Map<String, Object> second) {
+        Map<String, Object> merged = new LinkedHashMap<>(first);
+        merged.putAll(second);
+        return merged;
+    }
+
+    private static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+
+    private static double consumed(MeterRegistry registry) {
+        return registry.counter("inventory.orders.consumed").count();
+    }
+
+    private static Map<String, Object> percentiles(Histogram micros) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("p50", micros.getValueAtPercentile(50) / 1000.0);
+        result.put("p99", micros.getValueAtPercentile(99) / 1000.0);
+        result.put("p999", micros.getValueAtPercentile(99.9) / 1000.0);
+        result.put("max", micros.getMaxValue() / 1000.0);
+        return result;
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    // GIT_COMMIT (CI) or the working tree's HEAD, so results can be lined up against history
+    private static String commit() {
+        String fromEnvironment = System.getenv("GIT_COMMIT");
+        if (fromEnvironment != null && !fromEnvironment.isBlank()) {
+            return fromEnvironment;
+        }
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String head = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return git.waitFor() == 0 && !head.isEmpty() ? head : "unknown";
+        } catch (IOException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+}
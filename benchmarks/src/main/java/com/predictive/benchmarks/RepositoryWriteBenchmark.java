@@ -0,0 +1,123 @@
+package com.predictive.benchmarks;
+
+import com.predictive.inventoryservice.InventoryBatchService;
+import com.predictive.inventoryservice.InventoryItem;
+import com.predictive.inventoryservice.SaleHistoryWriter;
+import com.predictive.inventoryservice.SaleRecord;
+import com.predictive.inventoryservice.SaleRecordRepository;
+import com.predictive.inventoryservice.StockShardStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// The inventory write paths against a real (embedded) Postgres, through the service's own beans:
+// the per-order upsert, one poll applied order by order vs coalesced into one batch, and sale history via COPY
+// vs the JPA saveAll it replaced. applyOrdersOneByOne and applyOrdersBatch handle the same batchSize orders per
+// invocation, so their scores compare directly (before and after the listener started coalescing).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryWriteBenchmark {
+
+    private static final int SKUS = 1000;
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private LocalStandIns standIns;
+    private ConfigurableApplicationContext context;
+    private InventoryBatchService inventoryBatchService;
+    private StockShardStore stockShardStore;
+    private SaleHistoryWriter saleHistoryWriter;
+    private SaleRecordRepository saleRecordRepository;
+
+    private Map<String, Integer> ordersBySku;
+    private List<SaleRecord> sales;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        standIns = LocalStandIns.postgresOnly();
+        context = standIns.startInventoryService(Map.of());
+        inventoryBatchService = context.getBean(InventoryBatchService.class);
+        stockShardStore = context.getBean(StockShardStore.class);
+        saleHistoryWriter = context.getBean(SaleHistoryWriter.class);
+        saleRecordRepository = context.getBean(SaleRecordRepository.class);
+
+        ordersBySku = new TreeMap<>();
+        sales = new ArrayList<>(batchSize);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < batchSize; i++) {
+            String sku = "BENCH-" + (i % SKUS);
+            ordersBySku.merge(sku, 1, Integer::sum);
+            sales.add(new SaleRecord(sku, 1, now));
+        }
+        // Huge opening stock so the totals never clamp at zero mid-run
+        ordersBySku.keySet().forEach(sku -> stockShardStore.register(new StockShardStore.Shard(sku, "MAIN"), 1_000_000_000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        standIns.close();
+    }
+
+    // One order on its own: one shard upsert, then the summed row read back
+    @Benchmark
+    public List<InventoryItem> decrementStock() {
+        return inventoryBatchService.applyOrders(Map.of("BENCH-" + (next++ % SKUS), 1));
+    }
+
+    // One consumer poll the way the listener used to apply it: a transaction and a read-back per order
+    @Benchmark
+    public List<InventoryItem> applyOrdersOneByOne() {
+        List<InventoryItem> last = List.of();
+        for (SaleRecord sale : sales) {
+            last = inventoryBatchService.applyOrders(Map.of(sale.getSku(), sale.getQuantitySold()));
+        }
+        return last;
+    }
+
+    // The same poll as it is applied now: batchSize orders coalesced per SKU in one transaction
+    @Benchmark
+    public List<InventoryItem> applyOrdersBatch() {
+        return inventoryBatchService.applyOrders(ordersBySku);
+    }
+
+    // Sale history the way the listener writes it now: buffered, then one COPY
+    @Benchmark
+    public void saleHistoryCopy() {
+        saleHistoryWriter.append(sales);
+        saleHistoryWriter.flush();
+    }
+
+    // Sale history the way it used to be written: JPA saveAll (IDENTITY keys defeat JDBC batching)
+    @Benchmark
+    public List<SaleRecord> saleHistorySaveAll() {
+        List<SaleRecord> fresh = new ArrayList<>(sales.size());
+        sales.forEach(sale -> fresh.add(new SaleRecord(sale.getSku(), sale.getQuantitySold(), sale.getSaleTimestamp())));
+        return saleRecordRepository.saveAll(fresh);
+    }
+}
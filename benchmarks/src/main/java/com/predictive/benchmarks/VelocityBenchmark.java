@@ -0,0 +1,84 @@
+package com.predictive.benchmarks;
+
+import com.predictive.inventoryservice.PredictiveService;
+import com.predictive.inventoryservice.SaleRecord;
+import com.predictive.inventoryservice.VelocityEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// List-based PredictiveService.calculateVelocity vs the streaming VelocityEngine.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class VelocityBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    public int salesPerSku;
+
+    private List<SaleRecord> history;
+    private PredictiveService predictiveService;
+    private VelocityEngine engine;
+    private long clock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new VelocityEngine(60);
+        predictiveService = new PredictiveService(engine);
+        history = new ArrayList<>(salesPerSku);
+
+        // 100 sales per second; timestamps are shared per second to keep 10M rows in heap
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime second = start;
+        for (int i = 0; i < salesPerSku; i++) {
+            if (i % 100 == 0) {
+                second = start.plusSeconds(i / 100);
+            }
+            history.add(new SaleRecord("SKU-1", 1 + (i & 3), second));
+            engine.record("SKU-1", 1 + (i & 3), i * 10L);
+        }
+        clock = salesPerSku * 10L;
+    }
+
+    // What the dashboard had to do before: load every sale, stream over it
+    @Benchmark
+    public double listBasedVelocity() {
+        return predictiveService.calculateVelocity(history);
+    }
+
+    // Query the streaming engine: independent of history size
+    @Benchmark
+    public double engineVelocityQuery() {
+        return engine.velocityPerSecond("SKU-1", clock);
+    }
+
+    // Cost of folding one more order into the engine
+    @Benchmark
+    public void engineRecordSale() {
+        engine.record("SKU-1", 2, ++clock);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(VelocityBenchmark.class.getSimpleName()).build()).run();
+    }
+}
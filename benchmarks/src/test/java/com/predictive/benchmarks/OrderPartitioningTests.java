@@ -0,0 +1,137 @@
+package com.predictive.benchmarks;
+
+import com.predictive.inventoryservice.InventoryRepository;
+import com.predictive.orderservice.OrderEvent;
+import com.predictive.orderservice.StockView;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.ProducerListener;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Orders through the real OrderController and OrderPublisher into the real InventoryListener, with several
+// partitions and consumer threads: every order is sent keyed by its SKU, so all of a SKU's orders share one
+// partition and reach the listener in the order they were placed, while the SKUs are spread over the partitions.
+// How throughput scales with partitions is measured by PartitionScalingBenchmark.
+class OrderPartitioningTests {
+
+    private static final int PARTITIONS = 4;
+    private static final int SKUS = 16;
+    private static final int ORDERS_PER_SKU = 20;
+    private static final int STOCK = 1_000;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ordersAreKeyedBySkuAndEachSkuIsConsumedInPublishOrder() throws Exception {
+        try (LocalStandIns standIns = LocalStandIns.kafkaAndPostgres();
+             ConfigurableApplicationContext orderService = standIns.startOrderService(Map.of("orders.topic.partitions", PARTITIONS));
+             ConfigurableApplicationContext inventoryService = standIns.startInventoryService(Map.of("inventory.orders.concurrency", PARTITIONS))) {
+            URI inventory = URI.create("http://localhost:" + port(inventoryService) + "/api/inventory/");
+            URI orders = URI.create("http://localhost:" + port(orderService) + "/api/orders/");
+            StockView stockView = orderService.getBean(StockView.class);
+            InventoryRepository inventoryRepository = inventoryService.getBean(InventoryRepository.class);
+            JdbcTemplate jdbcTemplate = inventoryService.getBean(JdbcTemplate.class);
+
+            Queue<ProducerRecord<String, OrderEvent>> sent = new ConcurrentLinkedQueue<>();
+            Map<String, Set<Integer>> partitionsBySku = new ConcurrentHashMap<>();
+            KafkaTemplate<String, OrderEvent> kafkaTemplate = orderService.getBean(KafkaTemplate.class);
+            kafkaTemplate.setProducerListener(new ProducerListener<>() {
+                @Override
+                public void onSuccess(ProducerRecord<String, OrderEvent> record, RecordMetadata metadata) {
+                    sent.add(record);
+                    partitionsBySku.computeIfAbsent(record.key(), key -> ConcurrentHashMap.newKeySet()).add(metadata.partition());
+                }
+            });
+
+            await(stockView::isReady);
+            for (int i = 0; i < SKUS; i++) {
+                assertThat(post(inventory.resolve("skus?sku=" + sku(i) + "&quantity=" + STOCK))).isEqualTo(201);
+            }
+            await(() -> IntStream.range(0, SKUS).allMatch(i -> stockView.available(sku(i)) == STOCK));
+
+            // One client per SKU, each placing its orders one after the other; quantity n is the n-th order
+            ExecutorService clients = Executors.newFixedThreadPool(SKUS);
+            try {
+                List<Callable<Void>> placing = new ArrayList<>();
+                for (int i = 0; i < SKUS; i++) {
+                    String sku = sku(i);
+                    placing.add(() -> {
+                        for (int quantity = 1; quantity <= ORDERS_PER_SKU; quantity++) {
+                            assertThat(post(orders.resolve("place?sku=" + sku + "&quantity=" + quantity))).isEqualTo(200);
+                        }
+                        return null;
+                    });
+                }
+                for (Future<Void> client : clients.invokeAll(placing)) {
+                    client.get();
+                }
+            } finally {
+                clients.shutdown();
+            }
+
+            assertThat(sent).hasSize(SKUS * ORDERS_PER_SKU)
+                    .allSatisfy(record -> assertThat(record.key()).isEqualTo(record.value().getSku()));
+            assertThat(partitionsBySku).hasSize(SKUS).allSatisfy((sku, partitions) -> assertThat(partitions).hasSize(1));
+            assertThat(partitionsBySku.values().stream().flatMap(Set::stream).distinct().count()).isGreaterThan(1);
+
+            // The listener appends each poll's sales in record order, and sale_record ids follow the appends
+            int sold = ORDERS_PER_SKU * (ORDERS_PER_SKU + 1) / 2;
+            await(() -> IntStream.range(0, SKUS).allMatch(i ->
+                    inventoryRepository.findBySku(sku(i)).orElseThrow().getQuantity() == STOCK - sold));
+            List<Integer> placed = IntStream.rangeClosed(1, ORDERS_PER_SKU).boxed().toList();
+            for (int i = 0; i < SKUS; i++) {
+                String sku = sku(i);
+                await(() -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sale_record WHERE sku = ?", Long.class, sku) == ORDERS_PER_SKU);
+                assertThat(jdbcTemplate.queryForList("SELECT quantity_sold FROM sale_record WHERE sku = ? ORDER BY id", Integer.class, sku))
+                        .as(sku).isEqualTo(placed);
+            }
+        }
+    }
+
+    private static String sku(int i) {
+        return "PART-" + i;
+    }
+
+    private int post(URI uri) throws Exception {
+        return http.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 30s");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+}
@@ -0,0 +1,40 @@
+package com.predictive.benchmarks;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelineLoadGeneratorTests {
+
+    // A few seconds of real load through both services: keeps the harness itself from rotting
+    @Test
+    @SuppressWarnings("unchecked")
+    void shortRunMeasuresEveryStageAndWritesTheReport(@TempDir Path dir) throws Exception {
+        Path output = dir.resolve("load-results.json");
+        Map<String, Object> results = new PipelineLoadGenerator(PipelineLoadGenerator.parse(
+                "warmup-seconds=2", "duration-seconds=3", "clients=2", "batch=100", "skus=50",
+                "partitions=4", "concurrency=2", "output=" + output)).run();
+
+        Map<String, Object> ingest = (Map<String, Object>) results.get("ingest");
+        Map<String, Object> pipeline = (Map<String, Object>) results.get("pipeline");
+        Map<String, Object> endToEnd = (Map<String, Object>) results.get("endToEnd");
+
+        assertThat((long) ingest.get("orders")).isPositive();
+        assertThat((long) ingest.get("rejectedRequests")).isZero();
+        assertThat(pipeline.get("ordersConsumedTotal")).isEqualTo(pipeline.get("ordersAcceptedTotal"));
+        assertThat((long) endToEnd.get("probes")).isPositive();
+        assertThat(Files.readString(output)).contains("\"p999\"", "\"commit\"");
+    }
+
+    @Test
+    void rejectsUnknownArguments() {
+        assertThatThrownBy(() -> PipelineLoadGenerator.parse("duration=10"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
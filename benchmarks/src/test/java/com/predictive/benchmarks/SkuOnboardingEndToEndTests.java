@@ -0,0 +1,70 @@
+package com.predictive.benchmarks;
+
+import com.predictive.inventoryservice.InventoryRepository;
+import com.predictive.orderservice.StockView;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Both services with stock admission on (the default): a SKU nobody has heard of goes from onboarding on
+// inventory-service, through inventory-stock into order-service's view, to an admitted order that
+// inventory-service applies and publishes back.
+class SkuOnboardingEndToEndTests {
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    void newSkuIsOnboardedOrderedAndItsStockUpdateReachesOrderService() throws Exception {
+        try (LocalStandIns standIns = LocalStandIns.kafkaAndPostgres();
+             ConfigurableApplicationContext inventoryService = standIns.startInventoryService(Map.of());
+             ConfigurableApplicationContext orderService = standIns.startOrderService(Map.of())) {
+            URI inventory = URI.create("http://localhost:" + port(inventoryService) + "/api/inventory/");
+            URI orders = URI.create("http://localhost:" + port(orderService) + "/api/orders/");
+            StockView stockView = orderService.getBean(StockView.class);
+            InventoryRepository inventoryRepository = inventoryService.getBean(InventoryRepository.class);
+            await(stockView::isReady);
+
+            assertThat(post(orders.resolve("place?sku=NEW-1&quantity=1"))).isEqualTo(409); // not onboarded yet
+
+            assertThat(post(inventory.resolve("skus?sku=NEW-1&quantity=10"))).isEqualTo(201);
+            assertThat(post(inventory.resolve("skus?sku=NEW-1&quantity=10"))).isEqualTo(409);
+            await(() -> stockView.available("NEW-1") == 10);
+
+            assertThat(post(orders.resolve("place?sku=NEW-1&quantity=3"))).isEqualTo(200);
+            await(() -> inventoryRepository.findBySku("NEW-1").orElseThrow().getQuantity() == 7);
+
+            // The published level has replaced the reservation: still 7, and exactly 7 more can be sold
+            await(() -> stockView.available("NEW-1") == 7);
+            assertThat(post(orders.resolve("place?sku=NEW-1&quantity=8"))).isEqualTo(409);
+            assertThat(post(orders.resolve("place?sku=NEW-1&quantity=7"))).isEqualTo(200);
+            await(() -> inventoryRepository.findBySku("NEW-1").orElseThrow().getQuantity() == 0);
+        }
+    }
+
+    private int post(URI uri) throws Exception {
+        return http.send(HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 30s");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private static int port(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+}
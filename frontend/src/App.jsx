@@ -121,7 +121,8 @@ function AdminDashboard() {
             return isNaN(d) ? getTime() : d.toLocaleTimeString([], { hour: '2-digit', minute: '2-digit' });
         };
 
-        fetch('http://localhost:8082/api/inventory')
+        // Full snapshot over REST: on load, and again whenever we miss a WebSocket frame
+        const loadInventory = () => fetch('http://localhost:8082/api/inventory')
             .then(res => res.json())
             .then(data => {
                 const initialInv = {};
@@ -137,6 +138,8 @@ function AdminDashboard() {
                 setInventory(initialInv);
             });
 
+        loadInventory();
+
         fetch('http://localhost:8082/api/inventory/sales')
             .then(res => res.json())
             .then(data => {
@@ -148,19 +151,38 @@ function AdminDashboard() {
                 setSales(formattedSales);
             });
 
+        let lastFrame = null;
         const stompClient = new Client({
             webSocketFactory: () => new SockJS('http://localhost:8082/ws'),
             debug: () => {},
             onConnect: () => {
+                // The server batches every changed SKU into one numbered frame, with only the changed fields
                 stompClient.subscribe('/topic/inventory', (msg) => {
-                    const item = JSON.parse(msg.body)
-                    setInventory(prev => ({ ...prev, [item.sku]: item.quantity }))
-                    setChartData(prev => ({ ...prev, [item.sku]: [...(prev[item.sku] || []), { time: getTime(), stock: item.quantity }].slice(-15) }));
-                    setSales(prev => [{ sku: item.sku, quantity: 'Stock Updated', time: getTime() }, ...prev].slice(0, 10));
+                    const { frame, items } = JSON.parse(msg.body)
+                    if (lastFrame !== null && frame !== lastFrame + 1) loadInventory(); // missed a frame -> resync
+                    lastFrame = frame;
+
+                    const stockChanges = items.filter(item => item.quantity !== undefined);
+                    if (stockChanges.length === 0) return;
+                    setInventory(prev => {
+                        const next = { ...prev };
+                        stockChanges.forEach(item => next[item.sku] = item.quantity);
+                        return next;
+                    });
+                    setChartData(prev => {
+                        const next = { ...prev };
+                        stockChanges.forEach(item => next[item.sku] = [...(next[item.sku] || []), { time: getTime(), stock: item.quantity }].slice(-15));
+                        return next;
+                    });
+                    setSales(prev => [...stockChanges.map(item => ({ sku: item.sku, quantity: 'Stock Updated', time: getTime() })), ...prev].slice(0, 10));
                 });
                 stompClient.subscribe('/topic/ai-predictions', (msg) => {
-                    const event = JSON.parse(msg.body)
-                    setPredictions(prev => ({ ...prev, [event.sku]: event.ai_velocity }))
+                    const { predictions: batch } = JSON.parse(msg.body)
+                    setPredictions(prev => {
+                        const next = { ...prev };
+                        batch.forEach(event => next[event.sku] = event.ai_velocity);
+                        return next;
+                    });
                 });
             }
         });
@@ -1,54 +1,67 @@
 package com.predictive.inventoryservice;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 @Service
 public class AIPredictionListener {
 
+    static final String PREDICTIONS_TOPIC = "smart-ai-predictions";
+
     private final InventoryRepository inventoryRepository;
-    private final SimpMessagingTemplate messagingTemplate;
-    private final KafkaTemplate<String, String> kafkaTemplate; // We can now send messages!
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InventoryItemCache inventoryItemCache;
+    private final InventoryBroadcaster inventoryBroadcaster;
+    private final RestockRiskIndex restockRiskIndex;
+    private final InventoryReadModel inventoryReadModel;
+    private final Timer consumerLag;
+    private final Timer dbWrite;
+    private final Timer cacheUpdate;
 
     public AIPredictionListener(InventoryRepository inventoryRepository,
-                                SimpMessagingTemplate messagingTemplate,
-                                KafkaTemplate<String, String> kafkaTemplate) {
+                                InventoryItemCache inventoryItemCache,
+                                InventoryBroadcaster inventoryBroadcaster,
+                                RestockRiskIndex restockRiskIndex,
+                                InventoryReadModel inventoryReadModel,
+                                PipelineMetrics pipelineMetrics) {
         this.inventoryRepository = inventoryRepository;
-        this.messagingTemplate = messagingTemplate;
-        this.kafkaTemplate = kafkaTemplate;
+        this.inventoryItemCache = inventoryItemCache;
+        this.inventoryBroadcaster = inventoryBroadcaster;
+        this.restockRiskIndex = restockRiskIndex;
+        this.inventoryReadModel = inventoryReadModel;
+        this.consumerLag = pipelineMetrics.consumerLag(PREDICTIONS_TOPIC);
+        this.dbWrite = pipelineMetrics.stage("db-write", PREDICTIONS_TOPIC);
+        this.cacheUpdate = pipelineMetrics.stage("cache", PREDICTIONS_TOPIC);
     }
 
-    @KafkaListener(topics = "smart-ai-predictions", groupId = "java-dashboard-group-v13")
-    public void handleAIPrediction(String rawJson) {
-        try {
-            AIPredictionEvent event = objectMapper.readValue(rawJson, AIPredictionEvent.class);
-            inventoryRepository.updateAiVelocity(event.getSku(), event.getAi_velocity());
-            messagingTemplate.convertAndSend("/topic/ai-predictions", event);
-
-            // --- THE AUTONOMOUS BRAIN ---
-            inventoryRepository.findBySku(event.getSku()).ifPresent(item -> {
-                if (event.getAi_velocity() > 0 && item.getQuantity() > 0) {
-
-                    double timeToZero = item.getQuantity() / event.getAi_velocity();
-
-                    // RULE: If we run out in less than 10 mins AND stock is below 30
-                    if (timeToZero <= 10.0 && item.getQuantity() <= 30) {
-                        System.out.println("🚨 CRITICAL WARNING: " + event.getSku() + " depleting in " + String.format("%.1f", timeToZero) + " mins!");
-                        System.out.println("🤖 AUTONOMOUS SYSTEM ENGAGED: Dispatching emergency restock order...");
-
-                        // Fire a message to the new 'warehouse-restock' topic!
-                        String restockEvent = String.format("{\"sku\":\"%s\", \"quantity\":100}", event.getSku());
-                        kafkaTemplate.send("warehouse-restock", restockEvent);
-                    }
-                }
-            });
-
-        } catch (Exception e) {
-            System.out.println("⚠️ Ignored old or unparseable AI message.");
-        }
+    // Predictions are latest-value per SKU: a new group starts at the head instead of replaying old forecasts
+    @KafkaListener(topics = PREDICTIONS_TOPIC, groupId = "java-dashboard-group-v13",
+            properties = "auto.offset.reset=latest")
+    public void handleAIPrediction(AIPredictionEvent event, @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp) {
+        // Already decoded from bytes (KafkaConfig); unparseable messages go to smart-ai-predictions-dlt
+        PipelineMetrics.recordConsumerLag(consumerLag, timestamp, System.currentTimeMillis());
+        applyPrediction(event);
+    }
+
+    // Shared by the Kafka listener and the in-process ForecastPublisher (local mode)
+    public void applyPrediction(AIPredictionEvent event) {
+        inventoryBroadcaster.publishPrediction(event);
+
+        // Only touches the catalogue row, which stock writes never lock, so it doesn't wait on order batches.
+        // Restock decisions are made by RestockScheduler from the risk index, not per message.
+        Optional<InventoryItem> updated = dbWrite.record(
+                () -> inventoryRepository.updateAiVelocity(event.getSku(), event.getAi_velocity()) > 0
+                        ? inventoryRepository.findBySku(event.getSku())
+                        : Optional.<InventoryItem>empty());
+        updated.ifPresent(item -> {
+            cacheUpdate.record(() -> inventoryItemCache.updated(item));
+            restockRiskIndex.update(item);
+            inventoryReadModel.update(item);
+            inventoryBroadcaster.publish(item);
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,147 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-process replacement for the Python brain.py regression.
+// Per SKU we keep an exponentially-weighted least-squares fit of cumulative units sold vs time.
+// Each order is a constant-time update of five doubles, so memory per SKU is fixed and
+// latency no longer grows with uptime (brain.py refit the whole history on every message).
+@Component
+public class ForecastEngine {
+
+    // Same warm-up as brain.py: no trend until we have at least 3 points
+    static final int MIN_POINTS = 3;
+
+    private final Map<String, SkuForecast> forecasts = new ConcurrentHashMap<>();
+    private final Set<String> dirtySkus = ConcurrentHashMap.newKeySet();
+    private final double decaySeconds;
+
+    public ForecastEngine(@Value("${forecast.decay-seconds:300}") double decaySeconds) {
+        this.decaySeconds = decaySeconds;
+    }
+
+    public void record(String sku, int quantity, long epochMillis) {
+        forecasts.computeIfAbsent(sku, key -> new SkuForecast(decaySeconds)).record(quantity, epochMillis);
+        dirtySkus.add(sku);
+    }
+
+    // Fitted sales velocity in units/minute (the unit brain.py published as ai_velocity)
+    public double velocityPerMinute(String sku) {
+        SkuForecast forecast = forecasts.get(sku);
+        return forecast == null ? 0.0 : forecast.slopePerSecond() * 60;
+    }
+
+    // Hands back every SKU that received orders since the last call, with its fresh velocity
+    public Map<String, Double> drainUpdatedVelocities() {
+        Map<String, Double> updated = new LinkedHashMap<>();
+        Iterator<String> it = dirtySkus.iterator();
+        while (it.hasNext()) {
+            String sku = it.next();
+            it.remove();
+            SkuForecast forecast = forecasts.get(sku);
+            if (forecast != null && forecast.hasTrend()) {
+                updated.put(sku, forecast.slopePerSecond() * 60);
+            }
+        }
+        return updated;
+    }
+
+    // Snapshot support (InventorySnapshotService): the fit is just these numbers, so it survives a restart exactly
+    public record State(long points, long lastMillis, double weight,
+                        double sumX, double sumY, double sumXX, double sumXY) {
+    }
+
+    public Map<String, State> exportState() {
+        Map<String, State> states = new HashMap<>(forecasts.size());
+        forecasts.forEach((sku, forecast) -> states.put(sku, forecast.state()));
+        return states;
+    }
+
+    // Restored fits are not marked dirty: their velocity is already in inventory_items
+    public void restore(String sku, State state) {
+        SkuForecast forecast = new SkuForecast(decaySeconds);
+        forecast.restore(state);
+        forecasts.put(sku, forecast);
+    }
+
+    // Weighted sums are kept relative to the newest point (x = seconds, y = cumulative units),
+    // which keeps them small and numerically stable no matter how long the service runs.
+    static final class SkuForecast {
+        private final double decaySeconds;
+
+        private long points;
+        private long lastMillis;
+        private double weight;
+        private double sumX;
+        private double sumY;
+        private double sumXX;
+        private double sumXY;
+
+        SkuForecast(double decaySeconds) {
+            this.decaySeconds = decaySeconds;
+        }
+
+        synchronized void record(int quantity, long epochMillis) {
+            if (points > 0) {
+                double dx = Math.max(0, epochMillis - lastMillis) / 1000.0;
+                double dy = quantity;
+
+                // 1. Age the old points
+                double decay = Math.exp(-dx / decaySeconds);
+                weight *= decay;
+                sumX *= decay;
+                sumY *= decay;
+                sumXX *= decay;
+                sumXY *= decay;
+
+                // 2. Move the origin to the new point
+                sumXX = sumXX - 2 * dx * sumX + dx * dx * weight;
+                sumXY = sumXY - dx * sumY - dy * sumX + dx * dy * weight;
+                sumX -= dx * weight;
+                sumY -= dy * weight;
+            }
+            // 3. The new point sits at the origin, so it only adds weight
+            weight += 1;
+            points++;
+            lastMillis = Math.max(lastMillis, epochMillis);
+        }
+
+        synchronized boolean hasTrend() {
+            return points >= MIN_POINTS && variance() > 1e-9;
+        }
+
+        synchronized double slopePerSecond() {
+            if (!hasTrend()) {
+                return 0.0;
+            }
+            double covariance = sumXY - sumX * sumY / weight;
+            return Math.max(0.0, covariance / variance());
+        }
+
+        synchronized State state() {
+            return new State(points, lastMillis, weight, sumX, sumY, sumXX, sumXY);
+        }
+
+        synchronized void restore(State state) {
+            points = state.points();
+            lastMillis = state.lastMillis();
+            weight = state.weight();
+            sumX = state.sumX();
+            sumY = state.sumY();
+            sumXX = state.sumXX();
+            sumXY = state.sumXY();
+        }
+
+        private double variance() {
+            return sumXX - sumX * sumX / weight;
+        }
+    }
+}
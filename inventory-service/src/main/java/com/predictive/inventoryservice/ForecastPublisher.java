@@ -0,0 +1,56 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Pushes the ForecastEngine's fresh velocities on a throttled schedule instead of once per order.
+// mode=kafka keeps the smart-ai-predictions contract (other consumers still work);
+// mode=local skips Kafka and feeds AIPredictionListener directly.
+@Component
+@ConditionalOnProperty(name = "forecast.engine.enabled", havingValue = "true", matchIfMissing = true)
+public class ForecastPublisher {
+
+    private static final LogAccessor LOGGER = new LogAccessor(ForecastPublisher.class);
+
+    private final ForecastEngine forecastEngine;
+    private final AIPredictionListener aiPredictionListener;
+    private final KafkaTemplate<String, AIPredictionEvent> kafkaTemplate;
+    private final boolean publishToKafka;
+
+    public ForecastPublisher(ForecastEngine forecastEngine,
+                             AIPredictionListener aiPredictionListener,
+                             KafkaTemplate<String, AIPredictionEvent> kafkaTemplate,
+                             @Value("${forecast.engine.mode:kafka}") String mode) {
+        this.forecastEngine = forecastEngine;
+        this.aiPredictionListener = aiPredictionListener;
+        this.kafkaTemplate = kafkaTemplate;
+        this.publishToKafka = !"local".equalsIgnoreCase(mode);
+    }
+
+    @Scheduled(fixedDelayString = "${forecast.publish-interval-ms:1000}")
+    public void publishForecasts() {
+        Map<String, Double> velocities = forecastEngine.drainUpdatedVelocities();
+
+        velocities.forEach((sku, velocityPerMinute) -> {
+            AIPredictionEvent event = new AIPredictionEvent();
+            event.setSku(sku);
+            event.setAi_velocity(Math.round(velocityPerMinute * 100) / 100.0);
+
+            if (publishToKafka) {
+                kafkaTemplate.send("smart-ai-predictions", sku, event);
+            } else {
+                aiPredictionListener.applyPrediction(event);
+            }
+        });
+
+        if (!velocities.isEmpty()) {
+            LOGGER.debug(() -> "Forecasts published for " + velocities.size() + " SKUs");
+        }
+    }
+}
@@ -1,37 +1,181 @@
 package com.predictive.inventoryservice;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.cache.annotation.Cacheable; // Add this import
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/inventory")
-@CrossOrigin(origins = "*") // Allows React to fetch data safely
+@CrossOrigin(origins = "*", exposedHeaders = {"ETag", InventoryApiController.NEXT_CURSOR_HEADER,
+        InventoryReadModel.READ_MODEL_VERSION_HEADER}) // Allows React to fetch data safely
 public class InventoryApiController {
 
-    private final InventoryRepository inventoryRepository;
-    private final SaleRecordRepository saleRecordRepository; // ⬅️ Injecting the history repo
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int EXPORT_CHUNK = 1000;
+
+    private final InventoryReadModel inventoryReadModel;
+    private final InventoryItemCache inventoryItemCache;
+    private final RecentSalesFeed recentSalesFeed;
+    private final RestockRiskIndex restockRiskIndex;
+    private final SalesSeriesService salesSeriesService;
+    private final InventoryBatchService inventoryBatchService;
+    private final InventoryBroadcaster inventoryBroadcaster;
+    private final StockLevelPublisher stockLevelPublisher;
+    private final ObjectWriter ndjsonWriter = new ObjectMapper().writerFor(InventoryReadModel.Row.class);
 
-    public InventoryApiController(InventoryRepository inventoryRepository,
-                                  SaleRecordRepository saleRecordRepository) {
-        this.inventoryRepository = inventoryRepository;
-        this.saleRecordRepository = saleRecordRepository;
+    public InventoryApiController(InventoryReadModel inventoryReadModel,
+                                  InventoryItemCache inventoryItemCache,
+                                  RecentSalesFeed recentSalesFeed,
+                                  RestockRiskIndex restockRiskIndex,
+                                  SalesSeriesService salesSeriesService,
+                                  InventoryBatchService inventoryBatchService,
+                                  InventoryBroadcaster inventoryBroadcaster,
+                                  StockLevelPublisher stockLevelPublisher) {
+        this.inventoryReadModel = inventoryReadModel;
+        this.inventoryItemCache = inventoryItemCache;
+        this.recentSalesFeed = recentSalesFeed;
+        this.restockRiskIndex = restockRiskIndex;
+        this.salesSeriesService = salesSeriesService;
+        this.inventoryBatchService = inventoryBatchService;
+        this.inventoryBroadcaster = inventoryBroadcaster;
+        this.stockLevelPublisher = stockLevelPublisher;
     }
 
     // Endpoint 1: Hydrate the main dashboard cards
+    // Keyset pages ordered by SKU, served from the in-memory read model (no database access). Pass the
+    // X-Next-Cursor header back as ?after= for the next page; X-Read-Model-Version says which published
+    // version the page came from. Sends an ETag; a matching If-None-Match gets a bodiless 304.
     @GetMapping
-    public List<InventoryItem> getAllInventory() {
-        return inventoryRepository.findAll();
+    public ResponseEntity<List<InventoryReadModel.Row>> getAllInventory(
+            @RequestParam(defaultValue = "") String after,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(defaultValue = "ALL") String filter,
+            @RequestParam(defaultValue = "30") int maxQuantity,
+            @RequestParam(defaultValue = "1.0") double minVelocity,
+            WebRequest request) {
+        int pageSize = InventoryPageService.pageSize(limit); // 0 or less still gets a row and a cursor
+        InventoryReadModel.Page page = inventoryReadModel.current().page(after, pageSize, parseFilter(filter), maxQuantity, minVelocity);
+
+        String etag = page.etag();
+        if (request.checkNotModified(etag)) {
+            return null; // 304, Spring has already written the headers
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag)
+                .header(InventoryReadModel.READ_MODEL_VERSION_HEADER, Long.toString(page.version()));
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.rows());
+    }
+
+    // Bulk export: every matching SKU as newline-delimited JSON, streamed page by page from ONE read-model
+    // snapshot, so the file is consistent as of the version in the header
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportInventory(
+            @RequestParam(defaultValue = "ALL") String filter,
+            @RequestParam(defaultValue = "30") int maxQuantity,
+            @RequestParam(defaultValue = "1.0") double minVelocity) {
+        InventoryPageService.Filter parsedFilter = parseFilter(filter);
+        InventoryReadModel.Snapshot snapshot = inventoryReadModel.current();
+
+        StreamingResponseBody body = out -> {
+            String cursor = "";
+            while (cursor != null) {
+                InventoryReadModel.Page page = snapshot.page(cursor, EXPORT_CHUNK, parsedFilter, maxQuantity, minVelocity);
+                for (InventoryReadModel.Row row : page.rows()) {
+                    out.write(ndjsonWriter.writeValueAsBytes(row));
+                    out.write('\n');
+                }
+                out.flush();
+                cursor = page.nextCursor();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(InventoryReadModel.READ_MODEL_VERSION_HEADER, Long.toString(snapshot.version()))
+                .body(body);
     }
 
     // Endpoint 2: Hydrate the Recent Activity sidebar
+    // Served from the in-memory ring buffer the order consumer appends to (no DB read in steady state)
     @GetMapping("/sales")
-    @Cacheable("recentSales") // ⬅️ THE MAGIC LINE
     public List<SaleRecord> getRecentSales() {
-        System.out.println("⚠️ CACHE MISS: Fetching from heavy PostgreSQL Database...");
-        return saleRecordRepository.findTop10ByOrderByIdDesc();
+        return recentSalesFeed.recentSales();
+    }
+
+    // Endpoint 2b: Units sold per step for one SKU, downsampled server-side to at most ?points points
+    // (default: the last 24 hours). Served from the minute/hour/day rollups, never from raw sale history.
+    @GetMapping("/sales/{sku}/series")
+    public ResponseEntity<SalesSeriesService.Series> getSalesSeries(
+            @PathVariable String sku,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "120") int points) {
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        LocalDateTime start = from == null ? end.minusDays(1) : from;
+        if (!end.isAfter(start)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(salesSeriesService.series(sku, start, end, points));
+    }
+
+    // Endpoint 3: The SKUs closest to running out, straight from the in-memory risk index
+    @GetMapping("/at-risk")
+    public List<RestockRiskIndex.RiskEntry> getAtRisk(@RequestParam(defaultValue = "20") int limit) {
+        return restockRiskIndex.topAtRisk(InventoryPageService.pageSize(limit));
+    }
+
+    // Endpoint 4: Single-SKU lookup, served from the near-cache
+    @GetMapping("/{sku}")
+    public ResponseEntity<InventoryItem> getItem(@PathVariable String sku) {
+        return ResponseEntity.of(inventoryItemCache.findBySku(sku));
+    }
+
+    // An unknown filter is the client's mistake: 400 naming the accepted ones, not a 500
+    // Endpoint 5: Onboard a SKU with its opening stock (at ?location, or the default one). Its level goes out on
+    // inventory-stock like every other change, which is how order-service learns it may take orders for it.
+    // 409 if the SKU exists already.
+    @PostMapping("/skus")
+    public ResponseEntity<InventoryItem> createSku(@RequestParam String sku, @RequestParam int quantity,
+                                                   @RequestParam(required = false) String location) {
+        if (sku.isBlank() || quantity < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return inventoryBatchService.createSku(sku.trim(), location, quantity)
+                .map(item -> {
+                    inventoryItemCache.updated(item);
+                    restockRiskIndex.update(item);
+                    inventoryReadModel.update(item);
+                    inventoryBroadcaster.publish(item);
+                    stockLevelPublisher.stockChanged(item);
+                    return ResponseEntity.status(HttpStatus.CREATED).body(item);
+                })
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    private static InventoryPageService.Filter parseFilter(String filter) {
+        try {
+            return InventoryPageService.Filter.valueOf(filter.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown filter '" + filter + "', expected one of " + Arrays.toString(InventoryPageService.Filter.values()), e);
+        }
     }
-}
\ No newline at end of file
+}
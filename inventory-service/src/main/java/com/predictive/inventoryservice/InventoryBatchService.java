@@ -0,0 +1,109 @@
+package com.predictive.inventoryservice;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+@Service
+public class InventoryBatchService {
+
+    // Stock we assume a brand-new SKU starts with (same default the single-order path used)
+    private static final int DEFAULT_INITIAL_STOCK = 100;
+
+    private final InventoryRepository inventoryRepository;
+    private final StockShardStore stockShardStore;
+    private final StockRouter stockRouter;
+    private final OrderOffsetStore orderOffsetStore;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer dbRead;
+
+    public InventoryBatchService(InventoryRepository inventoryRepository, StockShardStore stockShardStore,
+                                 StockRouter stockRouter, OrderOffsetStore orderOffsetStore,
+                                 PlatformTransactionManager transactionManager, PipelineMetrics pipelineMetrics) {
+        this.inventoryRepository = inventoryRepository;
+        this.stockShardStore = stockShardStore;
+        this.stockRouter = stockRouter;
+        this.orderOffsetStore = orderOffsetStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dbRead = pipelineMetrics.stage("db-read", InventoryListener.ORDER_EVENTS_TOPIC);
+    }
+
+    // Orders that name no location (they ship from the default one)
+    public List<InventoryItem> applyOrders(Map<String, Integer> quantitiesBySku) {
+        return applyOrders(quantitiesBySku, Map.of());
+    }
+
+    public List<InventoryItem> applyOrders(Map<String, Integer> quantitiesBySku, Map<Integer, Long> nextOffsetByPartition) {
+        Map<StockRouter.Target, Integer> quantities = new HashMap<>();
+        quantitiesBySku.forEach((sku, amount) -> quantities.put(new StockRouter.Target(sku, null), amount));
+        return applyRoutedOrders(quantities, nextOffsetByPartition);
+    }
+
+    // Applies a whole Kafka poll in ONE transaction (commitRoutedOrders), then reads the fresh totals back
+    public List<InventoryItem> applyRoutedOrders(Map<StockRouter.Target, Integer> quantities,
+                                                 Map<Integer, Long> nextOffsetByPartition) {
+        return current(commitRoutedOrders(quantities, nextOffsetByPartition));
+    }
+
+    // One decrement per shard, routed once per SKU and location, plus the order-events offsets the batch ends at,
+    // so after a restart the consumer resumes exactly where the database is and never re-applies an order.
+    // (Sale history is written behind by SaleHistoryWriter.) Only the touched shard rows are locked; the SKUs
+    // it returns are read back after the commit (see current).
+    public Set<String> commitRoutedOrders(Map<StockRouter.Target, Integer> quantities,
+                                          Map<Integer, Long> nextOffsetByPartition) {
+        SortedMap<StockShardStore.Shard, Integer> byShard = new TreeMap<>(); // sorted = consistent row-lock order (no deadlocks)
+        Set<String> skus = new LinkedHashSet<>();
+        quantities.forEach((target, amount) -> {
+            byShard.merge(stockRouter.orderShard(target.sku(), target.location()), amount, Integer::sum);
+            skus.add(target.sku());
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            stockShardStore.decrement(byShard, DEFAULT_INITIAL_STOCK);
+            if (!nextOffsetByPartition.isEmpty()) {
+                orderOffsetStore.save(InventoryListener.ORDER_EVENTS_TOPIC, nextOffsetByPartition);
+            }
+        });
+        return skus;
+    }
+
+    // Committed totals, read outside any write transaction: they include every write that committed before the
+    // read, so a later read never carries a lower revision than an earlier one and the caches can keep the
+    // highest revision they have seen.
+    public List<InventoryItem> current(Collection<String> skus) {
+        return dbRead.record(() -> inventoryRepository.findBySkuIn(skus));
+    }
+
+    // A new catalogue entry with its opening stock at the named (or default) location, read back once committed.
+    // Empty if the SKU already exists: its stock only moves through orders and restocks.
+    public Optional<InventoryItem> createSku(String sku, String location, int quantity) {
+        boolean created = transactionTemplate.execute(status -> stockShardStore.create(stockRouter.orderShard(sku, location), quantity));
+        return created ? inventoryRepository.findBySku(sku) : Optional.empty();
+    }
+
+    // One restock, routed to the named location's restock shard or the one holding the least of the SKU, and
+    // read back once committed. With a restockId it lands at most once per id; one without (older producers)
+    // gets a fresh id, so it still applies on every delivery but leaves its processed_restock row like every
+    // other restock (InventorySnapshotService re-reads restocked SKUs from those rows).
+    // Empty if the restockId was applied before or the SKU is unknown (restocks never create one).
+    public Optional<InventoryItem> applyRestock(String restockId, String sku, String location, int amount) {
+        String key = restockId == null ? "unkeyed-" + UUID.randomUUID() : restockId;
+        boolean applied = transactionTemplate.execute(status -> {
+            StockShardStore.Shard shard = stockRouter.restockShard(sku, location, stockShardStore.stockByLocation(sku));
+            return stockShardStore.applyRestock(key, shard, amount);
+        });
+        return applied ? inventoryRepository.findBySku(sku) : Optional.empty();
+    }
+}
@@ -0,0 +1,141 @@
+package com.predictive.inventoryservice;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Broadcast stage for /topic/inventory and /topic/ai-predictions.
+// Writers only drop their latest state per SKU in here; once per frame interval we send ONE
+// message per topic containing just the fields that changed since the last frame.
+// Frames are numbered so a client that missed one (slow session, dropped frame) knows to resync.
+@Component
+public class InventoryBroadcaster {
+
+    static final String INVENTORY_TOPIC = "/topic/inventory";
+    static final String PREDICTIONS_TOPIC = "/topic/ai-predictions";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final PipelineMetrics pipelineMetrics;
+    private final Timer inventorySend;
+    private final Timer predictionsSend;
+
+    // Latest pending state per SKU; a newer update simply replaces the older one
+    // (but keeps the creation time of the oldest order still waiting for a frame)
+    private final Map<String, PendingItem> pendingItems = new ConcurrentHashMap<>();
+    private final Map<String, AIPredictionEvent> pendingPredictions = new ConcurrentHashMap<>();
+
+    // Only touched by the frame thread
+    private final Map<String, InventoryDelta> lastSent = new HashMap<>();
+    private long inventoryFrame;
+    private long predictionFrame;
+
+    public InventoryBroadcaster(SimpMessagingTemplate messagingTemplate, PipelineMetrics pipelineMetrics) {
+        this.messagingTemplate = messagingTemplate;
+        this.pipelineMetrics = pipelineMetrics;
+        this.inventorySend = pipelineMetrics.stage("websocket-send", INVENTORY_TOPIC);
+        this.predictionsSend = pipelineMetrics.stage("websocket-send", PREDICTIONS_TOPIC);
+    }
+
+    public void publish(InventoryItem item) {
+        publish(item, 0L);
+    }
+
+    public void publish(Collection<InventoryItem> items) {
+        items.forEach(this::publish);
+    }
+
+    // Orders: orderCreatedAt (epoch millis, per SKU) feeds the end-to-end latency once the frame is sent
+    public void publish(Collection<InventoryItem> items, Map<String, Long> orderCreatedAtBySku) {
+        items.forEach(item -> publish(item, orderCreatedAtBySku.getOrDefault(item.getSku(), 0L)));
+    }
+
+    private void publish(InventoryItem item, long orderCreatedAt) {
+        pendingItems.merge(item.getSku(), new PendingItem(item, orderCreatedAt), PendingItem::replacedBy);
+    }
+
+    public void publishPrediction(AIPredictionEvent event) {
+        pendingPredictions.put(event.getSku(), event);
+    }
+
+    @Scheduled(fixedRateString = "${inventory.broadcast.frame-interval-ms:100}")
+    public void sendFrame() {
+        List<PendingItem> items = drain(pendingItems);
+        List<InventoryDelta> deltas = new ArrayList<>();
+        items.forEach(pending -> {
+            InventoryDelta delta = diff(pending.item());
+            if (delta != null) {
+                deltas.add(delta);
+            }
+        });
+        if (!deltas.isEmpty()) {
+            inventorySend.record(() -> messagingTemplate.convertAndSend(INVENTORY_TOPIC, new InventoryFrame(++inventoryFrame, deltas)));
+        }
+        // Also counts SKUs whose fields did not change: the dashboard is up to date with those orders either way
+        long sentAt = System.currentTimeMillis();
+        items.forEach(pending -> pipelineMetrics.recordEndToEnd(pending.oldestOrderCreatedAt(), sentAt));
+
+        List<AIPredictionEvent> predictions = drain(pendingPredictions);
+        if (!predictions.isEmpty()) {
+            predictionsSend.record(() -> messagingTemplate.convertAndSend(PREDICTIONS_TOPIC, new PredictionFrame(++predictionFrame, predictions)));
+        }
+    }
+
+    // Only the fields that differ from what clients already have (everything for a SKU we never sent)
+    private InventoryDelta diff(InventoryItem item) {
+        InventoryDelta previous = lastSent.get(item.getSku());
+        InventoryDelta current = new InventoryDelta(item.getSku(), item.getQuantity(), item.getAiVelocity(), item.getLocations());
+        lastSent.put(item.getSku(), current);
+
+        if (previous == null) {
+            return current;
+        }
+        Integer quantity = Objects.equals(previous.quantity(), current.quantity()) ? null : current.quantity();
+        Double aiVelocity = Objects.equals(previous.aiVelocity(), current.aiVelocity()) ? null : current.aiVelocity();
+        Map<String, Integer> locations = Objects.equals(previous.locations(), current.locations()) ? null : current.locations();
+        if (quantity == null && aiVelocity == null && locations == null) {
+            return null;
+        }
+        return new InventoryDelta(item.getSku(), quantity, aiVelocity, locations);
+    }
+
+    private static <T> List<T> drain(Map<String, T> pending) {
+        List<T> drained = new ArrayList<>(pending.size());
+        Iterator<String> skus = pending.keySet().iterator();
+        while (skus.hasNext()) {
+            T value = pending.remove(skus.next());
+            if (value != null) {
+                drained.add(value);
+            }
+        }
+        return drained;
+    }
+
+    // 0 = not caused by an order (restock, prediction) or sent by a producer that does not stamp orders
+    private record PendingItem(InventoryItem item, long oldestOrderCreatedAt) {
+        PendingItem replacedBy(PendingItem newer) {
+            long oldest = oldestOrderCreatedAt == 0 ? newer.oldestOrderCreatedAt
+                    : newer.oldestOrderCreatedAt == 0 ? oldestOrderCreatedAt
+                    : Math.min(oldestOrderCreatedAt, newer.oldestOrderCreatedAt);
+            return new PendingItem(newer.item, oldest);
+        }
+    }
+
+    // Absent field = unchanged since the previous frame (locations: units per location, sent whole when any changed)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record InventoryDelta(String sku, Integer quantity, Double aiVelocity, Map<String, Integer> locations) {}
+
+    public record InventoryFrame(long frame, List<InventoryDelta> items) {}
+
+    public record PredictionFrame(long frame, List<AIPredictionEvent> predictions) {}
+}
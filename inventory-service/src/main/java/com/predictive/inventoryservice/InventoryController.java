@@ -4,34 +4,33 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.Instant;
 
 @Controller
 @RequestMapping("/dashboard")
 public class InventoryController {
 
-    private final InventoryRepository inventoryRepository;
-    private final SaleRecordRepository saleRecordRepository;
-    private final PredictiveService predictiveService;
-
-    // Inject the basic inventory, the new history memory, and the predictive brain
-    public InventoryController(InventoryRepository inventoryRepository,
-                               SaleRecordRepository saleRecordRepository,
-                               PredictiveService predictiveService) {
-        this.inventoryRepository = inventoryRepository;
-        this.saleRecordRepository = saleRecordRepository;
-        this.predictiveService = predictiveService;
+    private static final int PAGE_SIZE = 200;
+
+    private final InventoryReadModel inventoryReadModel;
+
+    public InventoryController(InventoryReadModel inventoryReadModel) {
+        this.inventoryReadModel = inventoryReadModel;
     }
 
     @GetMapping
-    public String getDashboard(Model model) {
-        // 1. Fetch all current inventory items (the shelves)
-        model.addAttribute("items", inventoryRepository.findAll());
-
-        // 2. Pass the history and the predictive brain directly to the HTML template
-        // This allows Thymeleaf to calculate the live forecast for every single row!
-        model.addAttribute("historyRepo", saleRecordRepository);
-        model.addAttribute("predictiveService", predictiveService);
+    public String getDashboard(@RequestParam(defaultValue = "") String after, Model model) {
+        // One page of the in-memory read model: stock, velocity and time to empty are already computed,
+        // so rendering neither queries Postgres nor calls back into services from the template
+        InventoryReadModel.Snapshot snapshot = inventoryReadModel.current();
+        InventoryReadModel.Page page = snapshot.page(after, PAGE_SIZE, InventoryPageService.Filter.ALL, 0, 0);
+        model.addAttribute("items", page.rows());
+        model.addAttribute("nextCursor", page.nextCursor());
+        model.addAttribute("readModelVersion", snapshot.version());
+        model.addAttribute("publishedAt", Instant.ofEpochMilli(snapshot.publishedAtMillis()));
 
         return "inventory-dashboard";
     }
-}
\ No newline at end of file
+}
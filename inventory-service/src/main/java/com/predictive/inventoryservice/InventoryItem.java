@@ -1,24 +1,40 @@
 package com.predictive.inventoryservice;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
-import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Immutable;
 
+import java.util.Map;
+
+// One SKU as readers see it: the inventory_levels view sums the SKU's stock shards (inventory_stock) on read.
+// Read-only; stock is written shard by shard through StockShardStore.
 @Entity
-@Table(name = "inventory_items")
-@DynamicUpdate
+@Table(name = "inventory_levels")
+@Immutable
 public class InventoryItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Column(unique = true)
     private String sku;
+    // Total over every location (never below zero)
     private Integer quantity;
     private Double aiVelocity = 0.0;
 
+    // Moves forward with every committed write to the SKU or any of its shards; lets the near-cache
+    // keep the newest copy of a row
+    private Long revision = 0L;
+
+    // The same total per warehouse location
+    @Convert(converter = LocationStockConverter.class)
+    private Map<String, Integer> locations = Map.of();
+
     // 1. MUST HAVE: Default constructor for Hibernate
     public InventoryItem() {}
 
@@ -41,4 +57,10 @@ public class InventoryItem {
 
     public Double getAiVelocity() { return aiVelocity; }
     public void setAiVelocity(Double aiVelocity) { this.aiVelocity = aiVelocity; }
+
+    public Long getRevision() { return revision; }
+    public void setRevision(Long revision) { this.revision = revision; }
+
+    public Map<String, Integer> getLocations() { return locations; }
+    public void setLocations(Map<String, Integer> locations) { this.locations = locations; }
 }
\ No newline at end of file
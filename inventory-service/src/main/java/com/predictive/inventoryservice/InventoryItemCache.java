@@ -0,0 +1,94 @@
+package com.predictive.inventoryservice;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+// Bounded in-process near-cache in front of InventoryRepository.findBySku.
+// Caffeine (W-TinyLFU eviction) with a size cap and a TTL as the safety net.
+// Write paths push their fresh rows in here (highest revision wins) and tell the
+// other replicas to drop their copy via the inventory-cache-invalidation topic
+// (which also tells their InventoryReadModel to re-read the SKU, and with it their RestockRiskIndex:
+// otherwise a SKU restocked by another replica would stay at risk here and be restocked again).
+@Component
+public class InventoryItemCache {
+
+    static final String INVALIDATION_TOPIC = "inventory-cache-invalidation";
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryReadModel inventoryReadModel;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final Cache<String, InventoryItem> cache;
+    private final boolean invalidateReplicas;
+
+    // Lets us ignore our own invalidation messages
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public InventoryItemCache(InventoryRepository inventoryRepository, InventoryReadModel inventoryReadModel,
+                              KafkaTemplate<String, String> kafkaTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${inventory.cache.max-size:100000}") long maxSize,
+                              @Value("${inventory.cache.ttl-seconds:30}") long ttlSeconds,
+                              @Value("${inventory.cache.invalidation.enabled:true}") boolean invalidateReplicas) {
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryReadModel = inventoryReadModel;
+        this.kafkaTemplate = kafkaTemplate;
+        this.invalidateReplicas = invalidateReplicas;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        // hit/miss/eviction/size meters on the existing Prometheus endpoint
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "inventoryItems");
+    }
+
+    public Optional<InventoryItem> findBySku(String sku) {
+        return Optional.ofNullable(cache.get(sku, key -> inventoryRepository.findBySku(key).orElse(null)));
+    }
+
+    // Called by every write path with the rows it just got back from Postgres
+    public void updated(InventoryItem item) {
+        cache.asMap().merge(item.getSku(), item, (cached, fresh) -> revisionOf(fresh) >= revisionOf(cached) ? fresh : cached);
+        if (invalidateReplicas) {
+            kafkaTemplate.send(INVALIDATION_TOPIC, item.getSku(), instanceId);
+        }
+    }
+
+    public void updated(Collection<InventoryItem> items) {
+        items.forEach(this::updated);
+    }
+
+    public void evict(String sku) {
+        cache.invalidate(sku);
+    }
+
+    // Every replica reads every invalidation (unique group per instance, newest messages only)
+    @KafkaListener(topics = INVALIDATION_TOPIC,
+            groupId = "inventory-cache-#{T(java.util.UUID).randomUUID().toString()}",
+            autoStartup = "${inventory.cache.invalidation.enabled:true}",
+            properties = "auto.offset.reset=latest")
+    public void handleInvalidation(String originInstanceId, @Header(KafkaHeaders.RECEIVED_KEY) String sku) {
+        if (!instanceId.equals(originInstanceId)) {
+            cache.invalidate(sku);
+            inventoryReadModel.markStale(sku);
+        }
+    }
+
+    private static long revisionOf(InventoryItem item) {
+        return item.getRevision() == null ? 0L : item.getRevision();
+    }
+}
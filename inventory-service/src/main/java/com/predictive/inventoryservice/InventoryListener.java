@@ -1,58 +1,279 @@
 package com.predictive.inventoryservice;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.core.log.LogAccessor;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.cache.annotation.CacheEvict; // ⬅️ 1. Import this
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
-public class InventoryListener {
+public class InventoryListener implements ConsumerSeekAware {
 
-    private final InventoryRepository inventoryRepository;
-    private final SaleRecordRepository saleRecordRepository;
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final SimpMessagingTemplate messagingTemplate;
+    static final String ORDER_EVENTS_TOPIC = "order-events";
 
-    public InventoryListener(InventoryRepository inventoryRepository, SaleRecordRepository saleRecordRepository, SimpMessagingTemplate messagingTemplate) {
-        this.inventoryRepository = inventoryRepository;
-        this.saleRecordRepository = saleRecordRepository;
-        this.messagingTemplate = messagingTemplate;
+    private static final LogAccessor LOGGER = new LogAccessor(InventoryListener.class);
+
+    private final InventoryBatchService inventoryBatchService;
+    private final SaleHistoryWriter saleHistoryWriter;
+    private final SalesRollupWriter salesRollupWriter;
+    private final InventoryItemCache inventoryItemCache;
+    private final RecentSalesFeed recentSalesFeed;
+    private final RestockRiskIndex restockRiskIndex;
+    private final InventoryReadModel inventoryReadModel;
+    private final InventoryBroadcaster inventoryBroadcaster;
+    private final StockLevelPublisher stockLevelPublisher;
+    private final VelocityEngine velocityEngine;
+    private final ForecastEngine forecastEngine;
+    private final OrderOffsetStore orderOffsetStore;
+    private final InventorySnapshotService inventorySnapshotService;
+
+    // Per partition: orders below this offset are already in Postgres and are only replayed into memory
+    // (loaded at assignment, advanced as each batch commits)
+    private final Map<Integer, Long> appliedOffsets = new ConcurrentHashMap<>();
+
+    // Per-stage latency (see PipelineMetrics)
+    private final Timer consumerLag;
+    private final Timer dbWrite;
+    private final Timer cacheUpdate;
+
+    // Throughput meters (scraped by Prometheus) so we can compare before/after batching
+    private final Counter ordersConsumed;
+    private final DistributionSummary batchSize;
+    private final Timer batchTimer;
+
+    public InventoryListener(InventoryBatchService inventoryBatchService, SaleHistoryWriter saleHistoryWriter,
+                             SalesRollupWriter salesRollupWriter,
+                             InventoryItemCache inventoryItemCache, RecentSalesFeed recentSalesFeed,
+                             RestockRiskIndex restockRiskIndex, InventoryReadModel inventoryReadModel,
+                             InventoryBroadcaster inventoryBroadcaster, StockLevelPublisher stockLevelPublisher,
+                             VelocityEngine velocityEngine, ForecastEngine forecastEngine,
+                             OrderOffsetStore orderOffsetStore,
+                             InventorySnapshotService inventorySnapshotService,
+                             PipelineMetrics pipelineMetrics, MeterRegistry meterRegistry) {
+        this.inventoryBatchService = inventoryBatchService;
+        this.saleHistoryWriter = saleHistoryWriter;
+        this.salesRollupWriter = salesRollupWriter;
+        this.inventoryItemCache = inventoryItemCache;
+        this.recentSalesFeed = recentSalesFeed;
+        this.restockRiskIndex = restockRiskIndex;
+        this.inventoryReadModel = inventoryReadModel;
+        this.inventoryBroadcaster = inventoryBroadcaster;
+        this.stockLevelPublisher = stockLevelPublisher;
+        this.velocityEngine = velocityEngine;
+        this.forecastEngine = forecastEngine;
+        this.orderOffsetStore = orderOffsetStore;
+        this.inventorySnapshotService = inventorySnapshotService;
+        this.consumerLag = pipelineMetrics.consumerLag(ORDER_EVENTS_TOPIC);
+        this.dbWrite = pipelineMetrics.stage("db-write", ORDER_EVENTS_TOPIC);
+        this.cacheUpdate = pipelineMetrics.stage("cache", ORDER_EVENTS_TOPIC);
+        this.ordersConsumed = meterRegistry.counter("inventory.orders.consumed");
+        this.batchSize = meterRegistry.summary("inventory.orders.batch.size");
+        this.batchTimer = meterRegistry.timer("inventory.orders.batch.duration");
     }
 
-    // ⬅️ 2. Add this annotation right below your KafkaListener
-    @KafkaListener(topics = "order-events", groupId = "inventory-group-v4")
-    @CacheEvict(value = "recentSales", allEntries = true)
-    public void handleOrderEvent(String rawJson) {
-        try {
-            OrderEvent orderEvent = objectMapper.readValue(rawJson, OrderEvent.class);
+    // Resume from the offsets stored with the stock, not the group's committed offsets: a new group id or an
+    // earliest reset would otherwise re-apply the whole order history. The first time a partition is assigned
+    // after a warm boot we start at the offset of the newest snapshot that covered it (whichever replica took it),
+    // and the orders up to the stored offset are replayed into memory only. Sales the write-behind writers had not flushed yet (the process died with them
+    // buffered) are replayed into those writers the same way, from the offsets each flush stored.
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        Map<Integer, Long> stored = orderOffsetStore.load(ORDER_EVENTS_TOPIC);
+        Map<Integer, Long> historyFlushed = orderOffsetStore.load(SaleHistoryWriter.OFFSETS_TOPIC);
+        Map<Integer, Long> rollupsFlushed = orderOffsetStore.load(SalesRollupWriter.OFFSETS_TOPIC);
+        for (TopicPartition partition : assignments.keySet()) {
+            Long applied = stored.get(partition.partition());
+            if (applied == null) {
+                continue; // never applied anything here: the group's position (or the reset policy) decides
+            }
+            appliedOffsets.put(partition.partition(), applied);
+            // Only ever restored once, so a rebalance does not replay a partition twice
+            Long snapshotOffset = inventorySnapshotService.restorePartition(partition.partition(), applied);
+            long enginesStart = snapshotOffset != null ? snapshotOffset : applied;
+            inventorySnapshotService.enginesStartAt(partition.partition(), enginesStart);
+            // Offsets from before the writers stored theirs: everything applied was flushed
+            long history = saleHistoryWriter.resumeAt(partition.partition(), historyFlushed.getOrDefault(partition.partition(), applied));
+            long rollups = salesRollupWriter.resumeAt(partition.partition(), rollupsFlushed.getOrDefault(partition.partition(), applied));
+            long start = Math.min(enginesStart, Math.min(history, rollups));
+            callback.seek(partition.topic(), partition.partition(), start);
+            LOGGER.info(() -> "Resuming " + partition + " at " + start + (start < applied ? ", replaying to " + applied + " in memory" : ""));
+        }
+    }
 
-            System.out.println("-------------------------------------------------");
-            System.out.println("🚨 INVENTORY SERVICE RECEIVED TICKET!");
+    // Whoever gets these partitions next replays from the writers' stored offsets, so hand over what is buffered;
+    // they snapshot the partitions from now on
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        saleHistoryWriter.flush();
+        salesRollupWriter.flush();
+        inventorySnapshotService.partitionsRevoked(partitions.stream().map(TopicPartition::partition).toList());
+    }
 
-            InventoryItem item = inventoryRepository.findBySku(orderEvent.getSku())
-                    .orElseGet(() -> new InventoryItem(orderEvent.getSku(), 100));
+    // Batch mode: one call per Kafka poll instead of one call per order.
+    // max.poll.records caps the batch, fetch.min.bytes + fetch.max.wait.ms give the broker a max linger.
+    // order-events is keyed by SKU, so with several consumers each SKU still lives on one partition and one
+    // thread: per-SKU order is preserved and concurrent batches never touch the same rows.
+    @KafkaListener(topics = ORDER_EVENTS_TOPIC, groupId = "inventory-group-v4", batch = "true",
+            containerFactory = "orderEventsContainerFactory",
+            concurrency = "${inventory.orders.concurrency:1}",
+            properties = {
+                    "max.poll.records=${inventory.orders.batch-size:500}",
+                    "fetch.min.bytes=${inventory.orders.min-fetch-bytes:1}",
+                    "fetch.max.wait.ms=${inventory.orders.max-linger-ms:50}"
+            })
+    public void handleOrderEvents(List<ConsumerRecord<String, OrderEvent>> records) {
+        Timer.Sample sample = Timer.start();
 
-            int newTotal = item.getQuantity() - orderEvent.getQuantity();
-            if (newTotal < 0) newTotal = 0;
+        // 1. Coalesce the poll: total quantity per SKU and location (routed to a shard once, see StockRouter)
+        //    + one sale row per order.
+        // Values arrive already decoded (KafkaConfig); an undecodable one is null and stops the batch there.
+        Map<StockRouter.Target, Integer> quantities = new HashMap<>();
+        Map<String, Long> orderCreatedAtBySku = new HashMap<>(); // oldest order per SKU, for end-to-end latency
+        List<SaleRecord> sales = new ArrayList<>(records.size());
+        Map<Integer, Long> nextOffsets = new HashMap<>(); // stored with the stock, see OrderOffsetStore
+        Map<String, Integer> partitionBySku = new HashMap<>(); // keyed by SKU, so one partition each
+        List<ConsumerRecord<String, OrderEvent>> replayed = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        long polledAt = System.currentTimeMillis();
+        int poisonIndex = -1;
 
-            item.setQuantity(newTotal);
-            inventoryRepository.save(item);
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, OrderEvent> record = records.get(i);
+            PipelineMetrics.recordConsumerLag(consumerLag, record.timestamp(), polledAt);
+            OrderEvent orderEvent = record.value();
+            if (record.offset() < appliedOffsets.getOrDefault(record.partition(), Long.MIN_VALUE)) {
+                if (orderEvent != null) {
+                    replayed.add(record);
+                }
+                continue; // applied before the restart (a poison record here was dead-lettered back then)
+            }
+            if (orderEvent == null) {
+                poisonIndex = i;
+                break;
+            }
+            nextOffsets.merge(record.partition(), record.offset() + 1, Math::max);
+            partitionBySku.put(orderEvent.getSku(), record.partition());
+            quantities.merge(new StockRouter.Target(orderEvent.getSku(), orderEvent.getLocation()), orderEvent.getQuantity(), Integer::sum);
+            if (orderEvent.getCreatedAt() > 0) {
+                orderCreatedAtBySku.merge(orderEvent.getSku(), orderEvent.getCreatedAt(), Math::min);
+            }
+            sales.add(new SaleRecord(orderEvent.getSku(), orderEvent.getQuantity(), now));
+        }
 
-            SaleRecord newSale = new SaleRecord(orderEvent.getSku(), orderEvent.getQuantity(), LocalDateTime.now());
-            saleRecordRepository.save(newSale);
+        if (!replayed.isEmpty()) {
+            replayTail(replayed);
+        }
+        if (!sales.isEmpty()) {
+            applyBatch(quantities, orderCreatedAtBySku, sales, nextOffsets, partitionBySku);
+            sample.stop(batchTimer);
+        }
+
+        // The orders before the bad one are applied; the error handler commits them, sends the bad record
+        // to order-events-dlt and redelivers the rest of the poll
+        if (poisonIndex >= 0) {
+            ConsumerRecord<String, OrderEvent> poison = records.get(poisonIndex);
+            throw new BatchListenerFailedException("Undecodable order event",
+                    SerializationUtils.getExceptionFromHeader(poison, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOGGER),
+                    poisonIndex);
+        }
+    }
+
+    private void applyBatch(Map<StockRouter.Target, Integer> quantities, Map<String, Long> orderCreatedAtBySku,
+                            List<SaleRecord> sales, Map<Integer, Long> nextOffsets, Map<String, Integer> partitionBySku) {
+        // 2. One transaction for the whole batch (stock + offsets); sale rows go to the write-behind buffer
+        //    and into the minute/hour/day rollups behind the sales time-series API
+        Set<String> skus = dbWrite.record(() -> inventoryBatchService.commitRoutedOrders(quantities, nextOffsets));
+        // Committed: if anything below throws, the error handler redelivers the poll, and those orders must
+        // only be replayed into memory, never decremented again
+        nextOffsets.forEach((partition, next) -> appliedOffsets.merge(partition, next, Math::max));
+        List<InventoryItem> updatedItems = inventoryBatchService.current(skus); // totals as of the commit or later
 
-            // BROADCAST TO THE FRONTEND!
-            messagingTemplate.convertAndSend("/topic/inventory", item);
+        // 3. Feed the streaming velocity + forecast engines (O(1) per order, no history reload), right away
+        //    and with their offsets, so neither a redelivery nor a snapshot can count these orders twice or never
+        long consumedAt = System.currentTimeMillis();
+        inventorySnapshotService.recordEngines(nextOffsets, partitionBySku, () -> sales.forEach(sale -> {
+            velocityEngine.record(sale.getSku(), sale.getQuantitySold(), consumedAt);
+            forecastEngine.record(sale.getSku(), sale.getQuantitySold(), consumedAt);
+        }));
 
-            System.out.println("✅ DATABASE UPDATED! Remaining " + item.getSku() + " stock: " + item.getQuantity());
-            System.out.println("🧹 CACHE CLEARED: Outdated history removed from Redis!"); // ⬅️ 3. Added proof
-            System.out.println("-------------------------------------------------");
+        saleHistoryWriter.append(sales, nextOffsets);
+        salesRollupWriter.append(sales, nextOffsets);
+        cacheUpdate.record(() -> inventoryItemCache.updated(updatedItems));
+        restockRiskIndex.update(updatedItems); // re-rank the touched SKUs by time to empty
+        inventoryReadModel.update(updatedItems); // dashboard + /api/inventory, visible from the next publish
+        recentSalesFeed.append(sales); // keeps the Recent Activity feed warm instead of evicting it
+        stockLevelPublisher.ordersApplied(updatedItems, partitionBySku, nextOffsets); // order-service's stock view
+
+        // 4. BROADCAST TO THE FRONTEND! (coalesced per SKU into the next WebSocket frame)
+        inventoryBroadcaster.publish(updatedItems, orderCreatedAtBySku);
+
+        ordersConsumed.increment(sales.size());
+        batchSize.record(sales.size());
+
+        LOGGER.debug(() -> "Batch applied: " + sales.size() + " orders across " + updatedItems.size() + " SKUs");
+    }
 
-        } catch (Exception e) {
-            System.out.println("⚠️ Ignored invalid order event format.");
+    // Orders the database already has: between the boot snapshot and the stored offsets, or a redelivered poll
+    // that failed after its commit. Only the in-memory state catches up: the engines and the write-behind writers
+    // with the orders they have not recorded yet (at the original order time), the cache and risk index from the
+    // current rows, and order-service's view, which may never have been sent the levels if the failure came right
+    // after the commit.
+    private void replayTail(List<ConsumerRecord<String, OrderEvent>> replayed) {
+        Set<String> skus = new HashSet<>();
+        Map<Integer, Long> nextOffsets = new HashMap<>();
+        Map<String, Integer> partitionBySku = new HashMap<>();
+        replayed.forEach(record -> {
+            skus.add(record.value().getSku());
+            nextOffsets.merge(record.partition(), record.offset() + 1, Math::max);
+            partitionBySku.put(record.value().getSku(), record.partition());
+        });
+        inventorySnapshotService.recordEngines(nextOffsets, partitionBySku, () -> {
+            for (ConsumerRecord<String, OrderEvent> record : replayed) {
+                if (record.offset() >= inventorySnapshotService.engineOffset(record.partition())) {
+                    OrderEvent order = record.value();
+                    velocityEngine.record(order.getSku(), order.getQuantity(), record.timestamp());
+                    forecastEngine.record(order.getSku(), order.getQuantity(), record.timestamp());
+                }
+            }
+        });
+        List<SaleRecord> unwrittenHistory = new ArrayList<>();
+        List<SaleRecord> unwrittenRollups = new ArrayList<>();
+        for (ConsumerRecord<String, OrderEvent> record : replayed) {
+            SaleRecord sale = new SaleRecord(record.value().getSku(), record.value().getQuantity(),
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(record.timestamp()), ZoneId.systemDefault()));
+            if (record.offset() >= saleHistoryWriter.appendedOffset(record.partition())) {
+                unwrittenHistory.add(sale);
+            }
+            if (record.offset() >= salesRollupWriter.appendedOffset(record.partition())) {
+                unwrittenRollups.add(sale);
+            }
         }
+        saleHistoryWriter.append(unwrittenHistory, nextOffsets);
+        salesRollupWriter.append(unwrittenRollups, nextOffsets);
+        List<InventoryItem> current = inventoryBatchService.current(skus);
+        inventoryItemCache.updated(current);
+        restockRiskIndex.update(current);
+        inventoryReadModel.update(current);
+        stockLevelPublisher.ordersApplied(current, partitionBySku, nextOffsets);
+        LOGGER.debug(() -> "Replayed " + replayed.size() + " already-applied orders across " + skus.size() + " SKUs");
     }
-}
\ No newline at end of file
+}
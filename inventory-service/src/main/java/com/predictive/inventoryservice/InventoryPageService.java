@@ -0,0 +1,48 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Keyset ("seek") pagination over inventory_levels (catalogue rows + summed stock shards) ordered by sku.
+// Each page is an index range scan on the unique sku index, so page 10,000 costs the same as page 1.
+// Loads the in-memory structures at boot (InventoryReadModel, RestockRiskIndex); request paths read those.
+@Service
+public class InventoryPageService {
+
+    public static final int MAX_PAGE_SIZE = 5000;
+
+    public enum Filter { ALL, LOW_STOCK, FAST_MOVING }
+
+    private final InventoryRepository inventoryRepository;
+
+    public InventoryPageService(InventoryRepository inventoryRepository) {
+        this.inventoryRepository = inventoryRepository;
+    }
+
+    // afterSku = last SKU of the previous page ("" for the first page)
+    public List<InventorySummary> page(String afterSku, int limit, Filter filter, int maxQuantity, double minVelocity) {
+        String cursor = afterSku == null ? "" : afterSku;
+        Limit pageSize = Limit.of(pageSize(limit));
+
+        return switch (filter) {
+            case LOW_STOCK -> inventoryRepository.findBySkuGreaterThanAndQuantityLessThanEqualOrderBySkuAsc(cursor, maxQuantity, pageSize);
+            case FAST_MOVING -> inventoryRepository.findBySkuGreaterThanAndAiVelocityGreaterThanEqualOrderBySkuAsc(cursor, minVelocity, pageSize);
+            case ALL -> inventoryRepository.findBySkuGreaterThanOrderBySkuAsc(cursor, pageSize);
+        };
+    }
+
+    // Rows a page holds for a requested limit: at least 1, at most MAX_PAGE_SIZE
+    public static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // Cursor for the next page, or null when this was the last one (an empty page always is)
+    public static String nextCursor(List<InventorySummary> page, int limit) {
+        if (page.isEmpty() || page.size() < pageSize(limit)) {
+            return null;
+        }
+        return page.get(page.size() - 1).sku();
+    }
+}
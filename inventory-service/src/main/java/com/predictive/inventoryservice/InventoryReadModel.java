@@ -0,0 +1,331 @@
+package com.predictive.inventoryservice;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Read side of the dashboard and /api/inventory: an immutable, SKU-sorted snapshot of every SKU's stock,
+// ai velocity and minutes to empty, held in memory as sorted segments of a few hundred rows (copy-on-write
+// per segment). The write paths hand their fresh rows to update(); publish() rebuilds only the segments those
+// rows fall into, shares every other segment with the previous snapshot, and swaps the result in with one
+// volatile write, bumping the version. A publish costs the touched segments plus one pointer per segment,
+// not a copy of every SKU.
+// Readers take current() once and page through it without locks or Postgres; responses carry its version
+// (READ_MODEL_VERSION_HEADER) so clients can tell an older view from a newer one.
+// Postgres is only read to seed at boot and to refresh SKUs another replica wrote (see InventoryItemCache);
+// those re-read rows also go to this replica's RestockRiskIndex, so a SKU restocked elsewhere stops being at risk here.
+@Component
+public class InventoryReadModel {
+
+    public static final String READ_MODEL_VERSION_HEADER = "X-Read-Model-Version";
+
+    private static final LogAccessor LOGGER = new LogAccessor(InventoryReadModel.class);
+
+    private static final Comparator<Row> BY_SKU = Comparator.comparing(Row::sku);
+
+    // Rows per segment; a segment that grows past twice this is split again
+    static final int SEGMENT_SIZE = 512;
+
+    // minutesToEmpty is null for SKUs with no velocity (they never run out at the current rate)
+    public record Row(String sku, int quantity, double aiVelocity, Double minutesToEmpty, long revision,
+                      Map<String, Integer> locations) {
+
+        static Row of(String sku, Integer quantity, Double aiVelocity, Long revision, Map<String, Integer> locations) {
+            int stock = quantity == null ? 0 : quantity;
+            double velocity = aiVelocity == null ? 0.0 : aiVelocity;
+            double minutes = RestockRiskIndex.minutesToEmpty(stock, velocity);
+            return new Row(sku, stock, velocity, Double.isInfinite(minutes) ? null : minutes,
+                    revision == null ? 0L : revision, locations == null ? Map.of() : locations);
+        }
+    }
+
+    public record Page(long version, List<Row> rows, String nextCursor) {
+
+        // Strong validator for the page: changes whenever any row on it is written (revision bump),
+        // when rows appear/disappear, or when a SKU past it turns it from the last page into a full one (the
+        // cursor is sent in a header, so a 304 must not hide a new one), but not when only other SKUs moved on
+        public String etag() {
+            long hash = 17;
+            for (Row row : rows) {
+                hash = 31 * hash + row.sku().hashCode();
+                hash = 31 * hash + row.revision();
+            }
+            hash = 31 * hash + (nextCursor == null ? 0 : nextCursor.hashCode());
+            return "\"" + Long.toHexString(hash) + "-" + rows.size() + "\"";
+        }
+    }
+
+    // One published version; never modified after construction (segments may be shared with newer versions)
+    public static final class Snapshot {
+
+        private final long version;
+        private final long publishedAtMillis;
+        private final List<List<Row>> segments; // each sorted and non-empty, every row below the next segment's
+        private final int size;
+
+        // segments: as above, and not touched again by the caller
+        Snapshot(long version, long publishedAtMillis, List<List<Row>> segments) {
+            this.version = version;
+            this.publishedAtMillis = publishedAtMillis;
+            this.segments = List.copyOf(segments);
+            this.size = segments.stream().mapToInt(List::size).sum();
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public long publishedAtMillis() {
+            return publishedAtMillis;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        List<List<Row>> segments() {
+            return segments;
+        }
+
+        public Optional<Row> find(String sku) {
+            if (segments.isEmpty()) {
+                return Optional.empty();
+            }
+            List<Row> rows = segments.get(segmentFor(sku));
+            int index = firstAfter(rows, sku, true);
+            return index < rows.size() && rows.get(index).sku().equals(sku) ? Optional.of(rows.get(index)) : Optional.empty();
+        }
+
+        // Keyset page: matching rows with sku > afterSku ("" for the first page)
+        public Page page(String afterSku, int limit, InventoryPageService.Filter filter, int maxQuantity, double minVelocity) {
+            int pageSize = InventoryPageService.pageSize(limit);
+            List<Row> page = new ArrayList<>(Math.min(pageSize, size));
+            String after = afterSku == null ? "" : afterSku;
+            int segment = segments.isEmpty() ? 0 : segmentFor(after);
+            int index = segment < segments.size() ? firstAfter(segments.get(segment), after, false) : 0;
+            while (segment < segments.size() && page.size() < pageSize) {
+                List<Row> rows = segments.get(segment);
+                if (index == rows.size()) {
+                    segment++;
+                    index = 0;
+                    continue;
+                }
+                Row row = rows.get(index++);
+                boolean matches = switch (filter) {
+                    case LOW_STOCK -> row.quantity() <= maxQuantity;
+                    case FAST_MOVING -> row.aiVelocity() >= minVelocity;
+                    case ALL -> true;
+                };
+                if (matches) {
+                    page.add(row);
+                }
+            }
+            boolean more = segment < segments.size()
+                    && (index < segments.get(segment).size() || segment + 1 < segments.size());
+            String next = more && page.size() == pageSize ? page.get(page.size() - 1).sku() : null;
+            return new Page(version, page, next);
+        }
+
+        // Binary search over the segments' first rows: the last segment starting at or before key (0 if none)
+        private int segmentFor(String key) {
+            int low = 0;
+            int high = segments.size() - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (segments.get(mid).get(0).sku().compareTo(key) <= 0) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        // Binary search: index of the first row with sku >= key (inclusive) or > key
+        private static int firstAfter(List<Row> rows, String key, boolean inclusive) {
+            int low = 0;
+            int high = rows.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = rows.get(mid).sku().compareTo(key);
+                if (cmp < 0 || (cmp == 0 && !inclusive)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private final InventoryPageService inventoryPageService;
+    private final InventoryRepository inventoryRepository;
+    private final RestockRiskIndex restockRiskIndex;
+
+    // Rows written since the last publish (newest revision per SKU) and SKUs other replicas changed
+    private final Map<String, Row> pending = new ConcurrentHashMap<>();
+    private final Set<String> stale = ConcurrentHashMap.newKeySet();
+
+    private volatile Snapshot current = new Snapshot(0, System.currentTimeMillis(), List.of());
+
+    public InventoryReadModel(InventoryPageService inventoryPageService, InventoryRepository inventoryRepository,
+                              RestockRiskIndex restockRiskIndex) {
+        this.inventoryPageService = inventoryPageService;
+        this.inventoryRepository = inventoryRepository;
+        this.restockRiskIndex = restockRiskIndex;
+    }
+
+    // Lock-free: one volatile read, then everything comes from that immutable snapshot
+    public Snapshot current() {
+        return current;
+    }
+
+    // Runs while the context is created, i.e. before any listener container starts consuming
+    @PostConstruct
+    public void seed() {
+        reload();
+    }
+
+    // Full rebuild from Postgres, a keyset page at a time
+    public synchronized void reload() {
+        List<Row> rows = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            List<InventorySummary> page = inventoryPageService.page(cursor, InventoryPageService.MAX_PAGE_SIZE,
+                    InventoryPageService.Filter.ALL, 0, 0);
+            page.forEach(row -> rows.add(Row.of(row.sku(), row.quantity(), row.aiVelocity(), row.revision(), row.locations())));
+            cursor = InventoryPageService.nextCursor(page, InventoryPageService.MAX_PAGE_SIZE);
+        }
+        rows.sort(BY_SKU); // the database may collate differently from String.compareTo
+        List<List<Row>> segments = new ArrayList<>(rows.size() / SEGMENT_SIZE + 1);
+        addSegments(segments, rows);
+        current = new Snapshot(current.version + 1, System.currentTimeMillis(), segments);
+        LOGGER.info(() -> "Inventory read model loaded: " + rows.size() + " SKUs");
+    }
+
+    public void update(InventoryItem item) {
+        Row row = Row.of(item.getSku(), item.getQuantity(), item.getAiVelocity(), item.getRevision(), item.getLocations());
+        pending.merge(row.sku(), row, InventoryReadModel::newer);
+    }
+
+    public void update(Collection<InventoryItem> items) {
+        items.forEach(this::update);
+    }
+
+    // Another replica wrote this SKU; re-read on the next publish (for the risk index too)
+    public void markStale(String sku) {
+        stale.add(sku);
+    }
+
+    // Returns the version now current (unchanged if nothing was written since the last publish)
+    @Scheduled(fixedDelayString = "${inventory.read-model.publish-interval-ms:100}")
+    public synchronized long publish() {
+        if (!stale.isEmpty()) {
+            List<InventoryItem> reread = inventoryRepository.findBySkuIn(drain(stale));
+            restockRiskIndex.update(reread);
+            update(reread);
+        }
+        if (pending.isEmpty()) {
+            return current.version;
+        }
+        TreeMap<String, Row> changes = new TreeMap<>();
+        Iterator<String> skus = pending.keySet().iterator();
+        while (skus.hasNext()) {
+            String sku = skus.next();
+            Row row = pending.remove(sku); // a row arriving after this goes into the next publish
+            if (row != null) {
+                changes.put(sku, row);
+            }
+        }
+
+        // Only segments with changes are rebuilt; the rest, and the old snapshot, stay as readers see them.
+        // A segment takes the changed SKUs from its first row up to the next segment's (the first one also
+        // takes any SKU sorting before it).
+        List<List<Row>> previous = current.segments;
+        List<List<Row>> segments = new ArrayList<>(previous.size() + 1);
+        if (previous.isEmpty()) {
+            addSegments(segments, new ArrayList<>(changes.values()));
+        }
+        for (int i = 0; i < previous.size(); i++) {
+            List<Row> segment = previous.get(i);
+            SortedMap<String, Row> inSegment = i == 0 ? changes : changes.tailMap(segment.get(0).sku());
+            if (i + 1 < previous.size()) {
+                inSegment = inSegment.headMap(previous.get(i + 1).get(0).sku());
+            }
+            if (inSegment.isEmpty()) {
+                segments.add(segment);
+            } else {
+                addSegments(segments, merge(segment, inSegment.values()));
+            }
+        }
+
+        current = new Snapshot(current.version + 1, System.currentTimeMillis(), segments);
+        return current.version;
+    }
+
+    // Two sorted sequences into one; on the same SKU the newer row wins
+    private static List<Row> merge(List<Row> rows, Collection<Row> changes) {
+        List<Row> merged = new ArrayList<>(rows.size() + changes.size());
+        Iterator<Row> changed = changes.iterator();
+        Row next = changed.hasNext() ? changed.next() : null;
+        for (Row row : rows) {
+            while (next != null && next.sku().compareTo(row.sku()) < 0) {
+                merged.add(next);
+                next = changed.hasNext() ? changed.next() : null;
+            }
+            if (next != null && next.sku().equals(row.sku())) {
+                merged.add(newer(row, next));
+                next = changed.hasNext() ? changed.next() : null;
+            } else {
+                merged.add(row);
+            }
+        }
+        while (next != null) {
+            merged.add(next);
+            next = changed.hasNext() ? changed.next() : null;
+        }
+        return merged;
+    }
+
+    // Sorted rows as one segment, or as SEGMENT_SIZE pieces once they are more than twice that
+    private static void addSegments(List<List<Row>> segments, List<Row> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        if (rows.size() <= 2 * SEGMENT_SIZE) {
+            segments.add(List.copyOf(rows));
+            return;
+        }
+        for (int from = 0; from < rows.size(); from += SEGMENT_SIZE) {
+            segments.add(List.copyOf(rows.subList(from, Math.min(from + SEGMENT_SIZE, rows.size()))));
+        }
+    }
+
+    // Concurrent write paths can hand rows over out of order; the higher revision wins
+    private static Row newer(Row a, Row b) {
+        return b.revision() >= a.revision() ? b : a;
+    }
+
+    private static List<String> drain(Set<String> skus) {
+        List<String> drained = new ArrayList<>(skus.size());
+        Iterator<String> iterator = skus.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+}
@@ -1,24 +1,35 @@
 package com.predictive.inventoryservice;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+// Reads go to the inventory_levels view (see InventoryItem)
 public interface InventoryRepository extends JpaRepository<InventoryItem, Long> {
     Optional<InventoryItem> findBySku(String sku);
 
-    @Modifying
-    @Transactional
-    @Query("UPDATE InventoryItem i SET i.aiVelocity = :aiVelocity WHERE i.sku = :sku")
-    void updateAiVelocity(@Param("sku") String sku, @Param("aiVelocity") Double aiVelocity);
+    List<InventoryItem> findBySkuIn(Collection<String> skus);
 
-    // THE NEW FIX: Surgically add stock without overwriting velocity!
-    @Modifying
+    // Keyset pages of lightweight projections (see InventoryPageService)
+    List<InventorySummary> findBySkuGreaterThanOrderBySkuAsc(String afterSku, Limit limit);
+
+    List<InventorySummary> findBySkuGreaterThanAndQuantityLessThanEqualOrderBySkuAsc(String afterSku, Integer maxQuantity, Limit limit);
+
+    List<InventorySummary> findBySkuGreaterThanAndAiVelocityGreaterThanEqualOrderBySkuAsc(String afterSku, Double minVelocity, Limit limit);
+
+    // Stock is written shard by shard (StockShardStore); this is the one write to the catalogue row.
+    // Bumps revision so caches can tell which copy of a SKU is newer; re-read it through findBySku.
     @Transactional
-    @Query("UPDATE InventoryItem i SET i.quantity = i.quantity + :amount WHERE i.sku = :sku")
-    void addStock(@Param("sku") String sku, @Param("amount") Integer amount);
-}
\ No newline at end of file
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            UPDATE inventory_items SET ai_velocity = :aiVelocity, revision = COALESCE(revision, 0) + 1
+            WHERE sku = :sku""")
+    int updateAiVelocity(@Param("sku") String sku, @Param("aiVelocity") Double aiVelocity);
+}
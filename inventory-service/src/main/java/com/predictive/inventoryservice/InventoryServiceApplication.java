@@ -3,9 +3,11 @@ package com.predictive.inventoryservice;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching; // ⬅️ Import this
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching // ⬅️ Turns on the Caching Engine
+@EnableScheduling // Drives the throttled in-process forecast publisher
 public class InventoryServiceApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(InventoryServiceApplication.class, args);
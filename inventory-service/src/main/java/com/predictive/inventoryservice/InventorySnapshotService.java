@@ -0,0 +1,375 @@
+package com.predictive.inventoryservice;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Warm restarts: a periodic, compact snapshot of the per-SKU state the service otherwise rebuilds cold
+// (stock + ai velocity for the risk index, the VelocityEngine and ForecastEngine fits), together with the
+// order-events offsets the engines had recorded up to.
+// Every replica snapshots only the partitions it consumes, and the fits of the SKUs on them. On boot the risk
+// index is loaded from the newest snapshot before the Kafka listeners start (the stock scan is the whole
+// table, whoever took it); the fits wait for the assignment: the first time a partition is assigned,
+// InventoryListener restores it from the newest snapshot that covered it and replays only the orders after
+// that snapshot's offset into memory (the database already has them, see OrderOffsetStore).
+// The stock is scanned after the offsets are taken, so it already includes every order below them.
+@Component
+public class InventorySnapshotService {
+
+    private static final LogAccessor LOGGER = new LogAccessor(InventorySnapshotService.class);
+
+    static final int FORMAT = 2;
+    private static final int NO_PARTITION = -1;
+
+    private static final String USABLE_SQL =
+            "SELECT id, taken_at, partitions FROM inventory_snapshot WHERE format = ? AND taken_at >= ? ORDER BY id DESC";
+    private static final String PAYLOAD_SQL = "SELECT payload FROM inventory_snapshot WHERE id = ?";
+    private static final String INSERT_SQL = """
+            INSERT INTO inventory_snapshot (taken_at, sku_count, format, partitions, payload)
+            VALUES (?, ?, ?, CAST(? AS INTEGER[]), ?)
+            """;
+    // The newest few overall, and the newest few that cover each partition (other replicas' included)
+    private static final String PRUNE_SQL = """
+            DELETE FROM inventory_snapshot s
+            WHERE s.id NOT IN (SELECT id FROM inventory_snapshot ORDER BY id DESC LIMIT ?)
+              AND NOT EXISTS (SELECT 1 FROM unnest(s.partitions) AS covered(part)
+                              WHERE (SELECT COUNT(*) FROM inventory_snapshot newer
+                                     WHERE newer.id > s.id AND covered.part = ANY (newer.partitions)) < ?)
+            """;
+    // Restocks are not on order-events, so rows restocked after the snapshot are re-read explicitly.
+    // Every restock leaves a processed_restock row (id-less ones get a generated id, see InventoryBatchService);
+    // rows are pruned after restock.processed-retention-hours, so an older snapshot is not restored at all.
+    private static final String RESTOCKED_SINCE_SQL = """
+            SELECT sku, quantity, ai_velocity FROM inventory_levels
+            WHERE sku IN (SELECT sku FROM processed_restock WHERE processed_at >= ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate consistentRead;
+    private final RestockRiskIndex restockRiskIndex;
+    private final VelocityEngine velocityEngine;
+    private final ForecastEngine forecastEngine;
+    private final boolean enabled;
+    private final int keep;
+    private final Duration maxAge;
+
+    // Per partition: the engines have recorded every order below this offset. Moved together with the engines
+    // under engineLock (shared by listener threads, exclusive while a snapshot exports), so a snapshot's fits
+    // and offsets always describe the same orders, whatever the listeners were in the middle of.
+    private final Map<Integer, Long> engineOffsets = new ConcurrentHashMap<>();
+    private final ReadWriteLock engineLock = new ReentrantReadWriteLock();
+    // Which partition each SKU's orders came from, so a snapshot can say whose fits are whose
+    private final Map<String, Integer> partitionBySku = new ConcurrentHashMap<>();
+
+    // Per partition: the fits found at boot, until the partition is first assigned here (see restorePartition)
+    private final Map<Integer, PartitionState> restorable = new ConcurrentHashMap<>();
+
+    public InventorySnapshotService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    RestockRiskIndex restockRiskIndex,
+                                    VelocityEngine velocityEngine, ForecastEngine forecastEngine,
+                                    @Value("${inventory.snapshot.enabled:true}") boolean enabled,
+                                    @Value("${inventory.snapshot.keep:3}") int keep,
+                                    @Value("${restock.processed-retention-hours:168}") long restockRetentionHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.restockRiskIndex = restockRiskIndex;
+        this.velocityEngine = velocityEngine;
+        this.forecastEngine = forecastEngine;
+        this.enabled = enabled;
+        this.keep = keep;
+        this.maxAge = Duration.ofHours(restockRetentionHours);
+
+        // One consistent view of the stock for the whole scan
+        this.consistentRead = new TransactionTemplate(transactionManager);
+        consistentRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        consistentRead.setReadOnly(true);
+    }
+
+    // Runs while the context is created, i.e. before any listener container starts consuming
+    @PostConstruct
+    public void warmUp() {
+        if (!enabled || !restoreLatest()) {
+            restockRiskIndex.seed();
+        }
+    }
+
+    // Runs recordEngines (orders into the VelocityEngine and ForecastEngine) and moves the engines' offsets to
+    // nextOffsets as one step, as far as takeSnapshot can tell
+    public void recordEngines(Map<Integer, Long> nextOffsets, Map<String, Integer> partitionBySku, Runnable recordEngines) {
+        engineLock.readLock().lock();
+        try {
+            recordEngines.run();
+            nextOffsets.forEach((partition, next) -> engineOffsets.merge(partition, next, Math::max));
+            this.partitionBySku.putAll(partitionBySku);
+        } finally {
+            engineLock.readLock().unlock();
+        }
+    }
+
+    // First assignment of a partition since boot: restores the fits of its SKUs from the newest snapshot that
+    // covered it and returns that snapshot's offset, which the engines now stand at. Null if there is none, or
+    // if it is ahead of what the database has applied.
+    public Long restorePartition(int partition, long applied) {
+        PartitionState state = restorable.remove(partition);
+        if (state == null || state.offset() > applied) {
+            return null;
+        }
+        engineLock.readLock().lock();
+        try {
+            for (SkuState sku : state.skus()) {
+                if (sku.velocity() != null) {
+                    velocityEngine.restore(sku.sku(), sku.velocity());
+                }
+                if (sku.forecast() != null) {
+                    forecastEngine.restore(sku.sku(), sku.forecast());
+                }
+                partitionBySku.put(sku.sku(), partition);
+            }
+            engineOffsets.merge(partition, state.offset(), Math::max);
+        } finally {
+            engineLock.readLock().unlock();
+        }
+        LOGGER.info(() -> "Restored order-events partition " + partition + " from the inventory snapshot of "
+                + state.takenAt() + ": " + state.skus().size() + " SKUs at offset " + state.offset());
+        return state.offset();
+    }
+
+    // Revoked partitions are snapshotted by their next owner, so ours stop covering them
+    public void partitionsRevoked(Collection<Integer> partitions) {
+        engineLock.readLock().lock();
+        try {
+            partitions.forEach(engineOffsets::remove);
+        } finally {
+            engineLock.readLock().unlock();
+        }
+    }
+
+    // Orders of this partition below the returned offset are in the engines already
+    public long engineOffset(int partition) {
+        return engineOffsets.getOrDefault(partition, Long.MIN_VALUE);
+    }
+
+    // Assignment: the consumer starts at offset, so the engines will never see the orders below it (again)
+    public void enginesStartAt(int partition, long offset) {
+        engineOffsets.merge(partition, offset, Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.snapshot.interval-ms:60000}",
+            initialDelayString = "${inventory.snapshot.interval-ms:60000}")
+    public void scheduledSnapshot() {
+        if (enabled) {
+            takeSnapshot();
+        }
+    }
+
+    // Returns the number of SKUs written
+    public int takeSnapshot() {
+        // Orders the exported engines have not seen are exactly those at or after these offsets, so the boot
+        // replay covers them; the stock scan below starts later and already includes everything before them
+        Map<String, VelocityEngine.State> velocities;
+        Map<String, ForecastEngine.State> forecasts;
+        Map<Integer, Long> offsets;
+        Map<String, Integer> skuPartitions;
+        engineLock.writeLock().lock();
+        try {
+            velocities = velocityEngine.exportState();
+            forecasts = forecastEngine.exportState();
+            offsets = Map.copyOf(engineOffsets);
+            skuPartitions = Map.copyOf(partitionBySku);
+        } finally {
+            engineLock.writeLock().unlock();
+        }
+        LocalDateTime takenAt = LocalDateTime.now();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int[] skuCount = {0};
+        consistentRead.executeWithoutResult(status -> {
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+                out.writeInt(offsets.size());
+                for (Map.Entry<Integer, Long> offset : offsets.entrySet()) {
+                    out.writeInt(offset.getKey());
+                    out.writeLong(offset.getValue());
+                }
+                jdbcTemplate.query("SELECT sku, quantity, ai_velocity FROM inventory_levels", rs -> {
+                    String sku = rs.getString(1);
+                    Integer partition = skuPartitions.get(sku);
+                    try {
+                        out.writeBoolean(true);
+                        if (partition != null && offsets.containsKey(partition)) {
+                            writeSku(out, sku, partition, rs.getInt(2), rs.getDouble(3), velocities.get(sku), forecasts.get(sku));
+                        } else {
+                            writeSku(out, sku, NO_PARTITION, rs.getInt(2), rs.getDouble(3), null, null);
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Could not encode inventory snapshot", e);
+                    }
+                    skuCount[0]++;
+                });
+                out.writeBoolean(false);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not encode inventory snapshot", e);
+            }
+        });
+
+        String partitions = offsets.keySet().stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+        jdbcTemplate.update(INSERT_SQL, Timestamp.valueOf(takenAt), skuCount[0], FORMAT, partitions, bytes.toByteArray());
+        jdbcTemplate.update(PRUNE_SQL, keep, keep);
+        LOGGER.debug(() -> "Inventory snapshot: " + skuCount[0] + " SKUs, " + bytes.size() + " bytes");
+        return skuCount[0];
+    }
+
+    // True if a snapshot was found: the newest loads the risk index, and for each partition the newest one that
+    // covered it is held for restorePartition. Snapshots older than the restock history are not used at all.
+    public boolean restoreLatest() {
+        List<SnapshotRow> usable = jdbcTemplate.query(USABLE_SQL, (rs, rowNum) -> new SnapshotRow(rs.getLong(1),
+                        rs.getTimestamp(2).toLocalDateTime(), Set.of((Integer[]) rs.getArray(3).getArray())),
+                FORMAT, Timestamp.valueOf(LocalDateTime.now().minus(maxAge)));
+        if (usable.isEmpty()) {
+            return false;
+        }
+
+        // Decode everything first so a corrupt snapshot leaves nothing half-restored
+        SnapshotRow newest = usable.get(0);
+        Snapshot latest = read(newest);
+        if (latest == null) {
+            return false;
+        }
+        Map<Integer, PartitionState> byPartition = new HashMap<>();
+        for (SnapshotRow row : usable) {
+            Set<Integer> uncovered = new HashSet<>(row.partitions());
+            uncovered.removeAll(byPartition.keySet());
+            if (uncovered.isEmpty()) {
+                continue;
+            }
+            Snapshot snapshot = row == newest ? latest : read(row);
+            if (snapshot == null) {
+                continue;
+            }
+            for (int partition : uncovered) {
+                Long offset = snapshot.offsets().get(partition);
+                if (offset != null) {
+                    List<SkuState> skus = snapshot.skus().stream().filter(sku -> sku.partition() == partition).toList();
+                    byPartition.put(partition, new PartitionState(offset, row.takenAt(), skus));
+                }
+            }
+        }
+
+        for (SkuState sku : latest.skus()) {
+            restockRiskIndex.update(sku.sku(), sku.quantity(), sku.aiVelocity());
+        }
+        jdbcTemplate.query(RESTOCKED_SINCE_SQL, rs -> {
+            restockRiskIndex.update(rs.getString(1), rs.getInt(2), rs.getDouble(3));
+        }, Timestamp.valueOf(newest.takenAt()));
+
+        restorable.putAll(byPartition);
+        LOGGER.info(() -> "Restored inventory snapshot from " + newest.takenAt() + ": " + latest.skus().size()
+                + " SKUs, order-events partitions restorable on assignment " + new TreeSet<>(byPartition.keySet()));
+        return true;
+    }
+
+    // Null (and a warning) if the payload cannot be decoded
+    private Snapshot read(SnapshotRow row) {
+        byte[] payload = jdbcTemplate.queryForObject(PAYLOAD_SQL, byte[].class, row.id());
+        Map<Integer, Long> offsets = new HashMap<>();
+        List<SkuState> skus = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(payload)))) {
+            int partitions = in.readInt();
+            for (int i = 0; i < partitions; i++) {
+                offsets.put(in.readInt(), in.readLong());
+            }
+            while (in.readBoolean()) {
+                skus.add(readSku(in));
+            }
+        } catch (IOException e) {
+            LOGGER.warn(e, "Unreadable inventory snapshot from " + row.takenAt() + ", skipping it");
+            return null;
+        }
+        return new Snapshot(offsets, skus);
+    }
+
+    private static void writeSku(DataOutputStream out, String sku, int partition, int quantity, double aiVelocity,
+                                 VelocityEngine.State velocity, ForecastEngine.State forecast) throws IOException {
+        out.writeUTF(sku);
+        out.writeInt(partition);
+        out.writeInt(quantity);
+        out.writeDouble(aiVelocity);
+
+        out.writeBoolean(velocity != null);
+        if (velocity != null) {
+            out.writeLong(velocity.totalUnits());
+            out.writeLong(velocity.saleCount());
+            out.writeLong(velocity.firstSaleMillis());
+            out.writeLong(velocity.lastSaleMillis());
+            out.writeDouble(velocity.decayedRate());
+            out.writeLong(velocity.decayedAtMillis());
+        }
+
+        out.writeBoolean(forecast != null);
+        if (forecast != null) {
+            out.writeLong(forecast.points());
+            out.writeLong(forecast.lastMillis());
+            out.writeDouble(forecast.weight());
+            out.writeDouble(forecast.sumX());
+            out.writeDouble(forecast.sumY());
+            out.writeDouble(forecast.sumXX());
+            out.writeDouble(forecast.sumXY());
+        }
+    }
+
+    private static SkuState readSku(DataInputStream in) throws IOException {
+        String sku = in.readUTF();
+        int partition = in.readInt();
+        int quantity = in.readInt();
+        double aiVelocity = in.readDouble();
+        VelocityEngine.State velocity = in.readBoolean()
+                ? new VelocityEngine.State(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readDouble(), in.readLong())
+                : null;
+        ForecastEngine.State forecast = in.readBoolean()
+                ? new ForecastEngine.State(in.readLong(), in.readLong(), in.readDouble(),
+                        in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble())
+                : null;
+        return new SkuState(sku, partition, quantity, aiVelocity, velocity, forecast);
+    }
+
+    private record SnapshotRow(long id, LocalDateTime takenAt, Set<Integer> partitions) {
+    }
+
+    private record Snapshot(Map<Integer, Long> offsets, List<SkuState> skus) {
+    }
+
+    private record PartitionState(long offset, LocalDateTime takenAt, List<SkuState> skus) {
+    }
+
+    // partition is NO_PARTITION for SKUs whose fits are not in the snapshot
+    private record SkuState(String sku, int partition, int quantity, double aiVelocity,
+                            VelocityEngine.State velocity, ForecastEngine.State forecast) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.predictive.inventoryservice;
+
+import java.util.Map;
+
+// Lightweight read projection of an InventoryItem: plain values, no managed entity,
+// no persistence-context bookkeeping. Used to load the in-memory read model and risk index page by page.
+// quantity is the total, locations the same stock per warehouse location.
+public record InventorySummary(String sku, Integer quantity, Double aiVelocity, Long revision,
+                               Map<String, Integer> locations) {
+}
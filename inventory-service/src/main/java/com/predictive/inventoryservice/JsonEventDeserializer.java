@@ -0,0 +1,43 @@
+package com.predictive.inventoryservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+// Decodes a Kafka value straight from its byte[] with a reader built once per event type:
+// no intermediate String, no JsonNode tree, no per-message type lookup.
+// Values that parse but fail the check (e.g. an order without a SKU) are rejected like broken JSON,
+// so the ErrorHandlingDeserializer around us routes both to the dead-letter topic.
+public class JsonEventDeserializer<T> implements Deserializer<T> {
+
+    private final Class<T> type;
+    private final ObjectReader reader;
+    private final Predicate<T> valid;
+
+    public JsonEventDeserializer(ObjectMapper objectMapper, Class<T> type, Predicate<T> valid) {
+        this.type = type;
+        this.reader = objectMapper.readerFor(type);
+        this.valid = valid;
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        T event;
+        try {
+            event = reader.readValue(data);
+        } catch (IOException e) {
+            throw new SerializationException("Unreadable " + type.getSimpleName() + " on " + topic, e);
+        }
+        if (event == null || !valid.test(event)) {
+            throw new SerializationException("Invalid " + type.getSimpleName() + " on " + topic);
+        }
+        return event;
+    }
+}
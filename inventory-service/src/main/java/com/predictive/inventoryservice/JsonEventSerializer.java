@@ -0,0 +1,29 @@
+package com.predictive.inventoryservice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+// Encodes an event to JSON bytes with a writer built once per event type
+public class JsonEventSerializer<T> implements Serializer<T> {
+
+    private final ObjectWriter writer;
+
+    public JsonEventSerializer(ObjectMapper objectMapper, Class<T> type) {
+        this.writer = objectMapper.writerFor(type);
+    }
+
+    @Override
+    public byte[] serialize(String topic, T event) {
+        if (event == null) {
+            return null;
+        }
+        try {
+            return writer.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Could not encode event for " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.predictive.inventoryservice;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.kafka.autoconfigure.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.kafka.autoconfigure.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.kafka.autoconfigure.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Typed Kafka serialization for every topic this service touches.
+// Consumers: byte[] -> event via a pre-built reader chosen by topic, wrapped in an ErrorHandlingDeserializer so a
+// poison message becomes a dead-letter record instead of a swallowed exception (or a stuck partition).
+// Producers: the serializer is chosen by the value's type, so one producer serves every typed KafkaTemplate.
+@Configuration
+public class KafkaConfig {
+
+    static final String DEAD_LETTER_SUFFIX = "-dlt";
+
+    // Tolerant reader: new fields from producers must not turn into dead letters
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Bean
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DefaultKafkaConsumerFactoryCustomizer eventDeserializers(PipelineMetrics pipelineMetrics) {
+        return factory -> ((DefaultKafkaConsumerFactory) factory)
+                .setValueDeserializerSupplier(() -> valueDeserializer(pipelineMetrics));
+    }
+
+    @Bean
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DefaultKafkaProducerFactoryCustomizer eventSerializers() {
+        return factory -> ((DefaultKafkaProducerFactory) factory).setValueSerializerSupplier(this::valueSerializer);
+    }
+
+    public Deserializer<Object> valueDeserializer() {
+        return valueDeserializer(null);
+    }
+
+    // One per consumer (the suppliers above are called for every consumer/producer the factories create).
+    // With metrics, each event decoder is timed as the "deserialize" stage of its topic.
+    public Deserializer<Object> valueDeserializer(PipelineMetrics pipelineMetrics) {
+        Map<String, Deserializer<?>> byTopic = new HashMap<>();
+        byTopic.put(InventoryListener.ORDER_EVENTS_TOPIC, new JsonEventDeserializer<>(objectMapper, OrderEvent.class,
+                order -> order.getSku() != null && !order.getSku().isBlank() && order.getQuantity() > 0));
+        byTopic.put(AIPredictionListener.PREDICTIONS_TOPIC, new JsonEventDeserializer<>(objectMapper, AIPredictionEvent.class,
+                prediction -> prediction.getSku() != null));
+        byTopic.put(RestockListener.RESTOCK_TOPIC, new JsonEventDeserializer<>(objectMapper, RestockEvent.class,
+                restock -> restock.getSku() != null && restock.getQuantity() > 0));
+        if (pipelineMetrics != null) {
+            byTopic.replaceAll((topic, decoder) -> new TimedDeserializer<>(decoder, pipelineMetrics.stage("deserialize", topic)));
+        }
+
+        // Anything else (e.g. cache invalidations) stays a plain String
+        return new ErrorHandlingDeserializer<>(new ByTopicDeserializer(byTopic, new StringDeserializer()));
+    }
+
+    public Serializer<Object> valueSerializer() {
+        Map<Class<?>, Serializer<?>> byType = new LinkedHashMap<>();
+        byType.put(String.class, new StringSerializer());
+        byType.put(byte[].class, new ByteArraySerializer()); // dead letters keep the original bytes
+        byType.put(OrderEvent.class, new JsonEventSerializer<>(objectMapper, OrderEvent.class));
+        byType.put(AIPredictionEvent.class, new JsonEventSerializer<>(objectMapper, AIPredictionEvent.class));
+        byType.put(RestockEvent.class, new JsonEventSerializer<>(objectMapper, RestockEvent.class));
+        byType.put(StockLevel.class, new JsonEventSerializer<>(objectMapper, StockLevel.class));
+
+        return new DelegatingByTypeSerializer(byType);
+    }
+
+    // Compacted: only the latest level per SKU is kept, so the topic stays as small as the catalogue
+    @Bean
+    public NewTopic inventoryStockTopic(@Value("${inventory.stock-topic.partitions:16}") int partitions,
+                                        @Value("${inventory.stock-topic.replicas:1}") short replicas) {
+        return TopicBuilder.name(StockLevelPublisher.STOCK_TOPIC)
+                .partitions(partitions)
+                .replicas(replicas)
+                .config(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT)
+                .build();
+    }
+
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterRecoverer(KafkaTemplate<String, Object> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, exception) -> new TopicPartition(record.topic() + DEAD_LETTER_SUFFIX, -1));
+    }
+
+    // Picked up by every listener container but order-events (see orderEventsContainerFactory).
+    // Poison records (undecodable or invalid) go to <topic>-dlt at once. A database error is not the record's
+    // fault, so it backs off until Postgres is back instead of dead-lettering a valid event; any other
+    // listener failure is retried a few times before it goes to <topic>-dlt.
+    @Bean
+    public DefaultErrorHandler kafkaErrorHandler(DeadLetterPublishingRecoverer deadLetterRecoverer,
+                                                 @Value("${inventory.kafka.retry.attempts:2}") long attempts,
+                                                 @Value("${inventory.kafka.retry.interval-ms:1000}") long intervalMillis,
+                                                 @Value("${inventory.kafka.retry.max-interval-ms:30000}") long maxIntervalMillis) {
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(deadLetterRecoverer, new FixedBackOff(intervalMillis, attempts));
+        errorHandler.setBackOffFunction((record, exception) ->
+                isDatabaseError(exception) ? untilRecovered(intervalMillis, maxIntervalMillis) : null);
+        retryAllButPoison(errorHandler);
+        return errorHandler;
+    }
+
+    // order-events: only a poison order is dead-lettered (InventoryListener reports it with
+    // BatchListenerFailedException, so the orders before it still apply). Any other failed batch is retried
+    // until it applies: dead-lettering it would drop valid stock decrements, and the SKUs' later orders must
+    // not overtake it anyway. Not a bean of its own, or Boot would find two error handlers and use neither.
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> orderEventsContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory,
+            DeadLetterPublishingRecoverer deadLetterRecoverer,
+            @Value("${inventory.kafka.retry.interval-ms:1000}") long intervalMillis,
+            @Value("${inventory.kafka.retry.max-interval-ms:30000}") long maxIntervalMillis) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(deadLetterRecoverer, untilRecovered(intervalMillis, maxIntervalMillis));
+        retryAllButPoison(errorHandler);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+
+    // Replaces Spring's default list (which also gives up at once on e.g. a ClassCastException in our own code)
+    private static void retryAllButPoison(DefaultErrorHandler errorHandler) {
+        errorHandler.setClassifications(Map.of(
+                DeserializationException.class, false,
+                SerializationException.class, false), true);
+    }
+
+    // Doubling, capped at maxIntervalMillis, no limit on attempts or elapsed time
+    private static BackOff untilRecovered(long intervalMillis, long maxIntervalMillis) {
+        ExponentialBackOff backOff = new ExponentialBackOff(intervalMillis, 2.0);
+        backOff.setMaxInterval(maxIntervalMillis);
+        return backOff;
+    }
+
+    // The listener's exception arrives wrapped (ListenerExecutionFailedException), so look through the causes
+    static boolean isDatabaseError(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static final class TimedDeserializer<T> implements Deserializer<T> {
+
+        private final Deserializer<T> delegate;
+        private final Timer timer;
+
+        TimedDeserializer(Deserializer<T> delegate, Timer timer) {
+            this.delegate = delegate;
+            this.timer = timer;
+        }
+
+        @Override
+        public void configure(Map<String, ?> configs, boolean isKey) {
+            delegate.configure(configs, isKey);
+        }
+
+        @Override
+        public T deserialize(String topic, byte[] data) {
+            long start = System.nanoTime();
+            try {
+                return delegate.deserialize(topic, data);
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public T deserialize(String topic, Headers headers, byte[] data) {
+            long start = System.nanoTime();
+            try {
+                return delegate.deserialize(topic, headers, data);
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    // Exact topic -> decoder lookup. Spring's DelegatingByTopicDeserializer matches regexes on every record,
+    // which allocates a Matcher per message; our topics are fixed names, so a HashMap hit is enough.
+    static final class ByTopicDeserializer implements Deserializer<Object> {
+
+        private final Map<String, Deserializer<?>> byTopic;
+        private final Deserializer<?> fallback;
+
+        ByTopicDeserializer(Map<String, Deserializer<?>> byTopic, Deserializer<?> fallback) {
+            this.byTopic = byTopic;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public void configure(Map<String, ?> configs, boolean isKey) {
+            byTopic.values().forEach(delegate -> delegate.configure(configs, isKey));
+            fallback.configure(configs, isKey);
+        }
+
+        @Override
+        public Object deserialize(String topic, byte[] data) {
+            return byTopic.getOrDefault(topic, fallback).deserialize(topic, data);
+        }
+
+        @Override
+        public Object deserialize(String topic, Headers headers, byte[] data) {
+            return byTopic.getOrDefault(topic, fallback).deserialize(topic, headers, data);
+        }
+    }
+}
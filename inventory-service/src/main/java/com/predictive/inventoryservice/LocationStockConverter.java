@@ -0,0 +1,40 @@
+package com.predictive.inventoryservice;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// inventory_levels.locations is a JSON object (location -> units) built by the view; read-only
+@Converter
+public class LocationStockConverter implements AttributeConverter<Map<String, Integer>, String> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<TreeMap<String, Integer>> TYPE = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, Integer> locations) {
+        try {
+            return locations == null ? null : OBJECT_MAPPER.writeValueAsString(locations);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not encode stock by location", e);
+        }
+    }
+
+    @Override
+    public Map<String, Integer> convertToEntityAttribute(String json) {
+        if (json == null || json.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return OBJECT_MAPPER.readValue(json, TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unreadable stock by location: " + json, e);
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.predictive.inventoryservice;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class OrderEvent {
     private String sku;
     private int quantity;
+    // Epoch millis when order-service accepted the order (0 from producers that don't stamp it)
+    private long createdAt;
+    // Location to ship from (null = the default one, see StockRouter)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String location;
 
     public OrderEvent() {
     }
@@ -16,4 +23,8 @@ public class OrderEvent {
     public void setSku(String sku) { this.sku = sku; }
     public int getQuantity() { return quantity; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
 }
\ No newline at end of file
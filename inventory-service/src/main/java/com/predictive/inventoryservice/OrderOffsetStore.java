@@ -0,0 +1,46 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Kafka offsets kept in Postgres next to the stock they produced (table consumer_offset).
+// InventoryBatchService saves them inside the batch transaction, so "stock applied" and "offset consumed"
+// commit or roll back together; InventoryListener seeks to them on assignment instead of trusting the group's
+// committed offsets (which a new group id or auto-offset-reset=earliest would throw away).
+@Component
+public class OrderOffsetStore {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO consumer_offset (topic, partition, next_offset) VALUES (?, ?, ?)
+            ON CONFLICT (topic, partition) DO UPDATE SET next_offset = GREATEST(consumer_offset.next_offset, EXCLUDED.next_offset)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderOffsetStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Joins the caller's transaction; offsets only move forward
+    public void save(String topic, Map<Integer, Long> nextOffsetByPartition) {
+        if (nextOffsetByPartition.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(nextOffsetByPartition.size());
+        nextOffsetByPartition.forEach((partition, nextOffset) -> rows.add(new Object[]{topic, partition, nextOffset}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    // Next offset to apply per partition (partitions never applied are absent)
+    public Map<Integer, Long> load(String topic) {
+        Map<Integer, Long> offsets = new HashMap<>();
+        jdbcTemplate.query("SELECT partition, next_offset FROM consumer_offset WHERE topic = ?",
+                rs -> { offsets.put(rs.getInt(1), rs.getLong(2)); }, topic);
+        return offsets;
+    }
+}
@@ -0,0 +1,61 @@
+package com.predictive.inventoryservice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Per-stage latency of the event pipeline, as Prometheus histograms (so p99 can be aggregated across replicas):
+//   inventory.pipeline.stage{stage, source}  consumer-lag, deserialize, db-write, db-read, cache, websocket-send
+//   inventory.pipeline.end-to-end            order accepted by order-service -> first WebSocket frame showing it
+// source is the Kafka topic (or WebSocket destination) the stage worked for.
+// Timers are looked up once and reused; recording is a few atomic adds, cheap enough for every record.
+@Component
+public class PipelineMetrics {
+
+    static final String STAGE_TIMER = "inventory.pipeline.stage";
+    static final String END_TO_END_TIMER = "inventory.pipeline.end-to-end";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> stages = new ConcurrentHashMap<>();
+    private final Timer endToEnd;
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.endToEnd = Timer.builder(END_TO_END_TIMER)
+                .description("Order creation in order-service to the dashboard frame that carried it")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(meterRegistry);
+    }
+
+    public Timer stage(String stage, String source) {
+        return stages.computeIfAbsent(stage + '|' + source, key -> Timer.builder(STAGE_TIMER)
+                .tag("stage", stage)
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMinutes(1))
+                .register(meterRegistry));
+    }
+
+    // Listeners keep their topic's consumer-lag timer in a field: it is recorded for every record
+    public Timer consumerLag(String topic) {
+        return stage("consumer-lag", topic);
+    }
+
+    // Time between the producer stamping the record and our listener getting it
+    public static void recordConsumerLag(Timer consumerLag, long recordTimestampMillis, long nowMillis) {
+        consumerLag.record(Math.max(nowMillis - recordTimestampMillis, 0), TimeUnit.MILLISECONDS);
+    }
+
+    // Spans two services, so it is only as good as their clock sync (fine on one host or with NTP)
+    public void recordEndToEnd(long createdAtMillis, long nowMillis) {
+        if (createdAtMillis > 0) {
+            endToEnd.record(Math.max(nowMillis - createdAtMillis, 0), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.predictive.inventoryservice;
 
+import org.springframework.core.log.LogAccessor;
 import org.springframework.stereotype.Service;
 import java.time.Duration;
 import java.util.List;
@@ -7,10 +8,23 @@ import java.util.List;
 @Service
 public class PredictiveService {
 
+    private static final LogAccessor LOGGER = new LogAccessor(PredictiveService.class);
+
+    private final VelocityEngine velocityEngine;
+
+    public PredictiveService(VelocityEngine velocityEngine) {
+        this.velocityEngine = velocityEngine;
+    }
+
+    // Live velocity straight from the streaming engine (no DB access)
+    public double currentVelocity(String sku) {
+        return velocityEngine.velocityPerSecond(sku);
+    }
+
     public double calculateVelocity(List<SaleRecord> history) {
         // 1. We need at least 2 sales to draw a line graph (a trend)
         if (history == null || history.size() < 2) {
-            System.out.println("🧠 Brain needs more data! Only " + (history == null ? 0 : history.size()) + " sales logged.");
+            LOGGER.debug(() -> "Not enough sales for a trend: " + (history == null ? 0 : history.size()));
             return 0.0;
         }
 
@@ -31,11 +45,17 @@ public class PredictiveService {
         // 4. Calculate Velocity (Items per second)
         double velocityPerSecond = (double) totalSold / secondsElapsed;
 
-        System.out.println("🧠 Brain Math -> Total Sold: " + totalSold + " | Seconds Elapsed: " + secondsElapsed + " | Velocity/sec: " + velocityPerSecond);
+        long elapsed = secondsElapsed;
+        LOGGER.debug(() -> "Velocity: " + totalSold + " sold over " + elapsed + "s = " + velocityPerSecond + "/s");
 
         return velocityPerSecond;
     }
 
+    // Served entirely from the in-memory engine, updated as each order is consumed
+    public String predictTimeToEmpty(String sku, int currentStock) {
+        return predictTimeToEmpty(currentStock, velocityEngine.velocityPerSecond(sku));
+    }
+
     public String predictTimeToEmpty(int currentStock, double velocity) {
         if (velocity <= 0) return "Stable";
 
@@ -0,0 +1,30 @@
+package com.predictive.inventoryservice;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+// One row per restock that has been applied, keyed by the restock's idempotency key.
+// StockShardStore.applyRestock inserts it in the same statement that adds the stock,
+// so a redelivered or duplicated restock finds its key taken and changes nothing.
+@Entity
+@Table(name = "processed_restock", indexes = @Index(name = "idx_processed_restock_at", columnList = "processedAt"))
+public class ProcessedRestock {
+
+    @Id
+    private String restockId;
+
+    private String sku;
+    private int quantity;
+    private LocalDateTime processedAt;
+
+    public ProcessedRestock() {}
+
+    public String getRestockId() { return restockId; }
+    public String getSku() { return sku; }
+    public int getQuantity() { return quantity; }
+    public LocalDateTime getProcessedAt() { return processedAt; }
+}
@@ -0,0 +1,18 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface ProcessedRestockRepository extends JpaRepository<ProcessedRestock, String> {
+
+    // Keys only need to outlive any possible redelivery (the topic's retention), not forever
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ProcessedRestock p WHERE p.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
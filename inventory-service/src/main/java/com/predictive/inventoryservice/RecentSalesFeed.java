@@ -0,0 +1,105 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+// The "Recent Activity" feed, kept as a bounded ring buffer that the order consumer appends to.
+// Reads are a volatile read of an immutable snapshot, so /api/inventory/sales never touches
+// the database in steady state. The only DB read is one coalesced query to backfill history
+// from before this instance started.
+@Component
+public class RecentSalesFeed {
+
+    private final SaleRecordRepository saleRecordRepository;
+    private final int capacity;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+
+    // Ring buffer (guarded by this) + the snapshot readers see
+    private final SaleRecord[] ring;
+    private int head;
+    private int size;
+    private volatile List<SaleRecord> snapshot = List.of();
+
+    // Cold start: one in-flight backfill shared by every concurrent caller
+    private volatile boolean backfilled;
+    private final AtomicReference<CompletableFuture<Void>> backfill = new AtomicReference<>();
+
+    public RecentSalesFeed(SaleRecordRepository saleRecordRepository,
+                           @Value("${inventory.recent-sales.capacity:10}") int capacity) {
+        this.saleRecordRepository = saleRecordRepository;
+        this.capacity = capacity;
+        this.ring = new SaleRecord[capacity];
+    }
+
+    // Newest first
+    public List<SaleRecord> recentSales() {
+        if (!backfilled) {
+            awaitBackfill();
+        }
+        return snapshot;
+    }
+
+    public synchronized void append(List<SaleRecord> sales) {
+        // Only the last `capacity` sales of a big batch can survive anyway
+        for (int i = Math.max(0, sales.size() - capacity); i < sales.size(); i++) {
+            push(sales.get(i));
+        }
+        publish();
+    }
+
+    private void awaitBackfill() {
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> inFlight = backfill.compareAndExchange(null, mine);
+        if (inFlight != null) {
+            inFlight.join();
+            return;
+        }
+        try {
+            // Only rows from before we started: anything newer is already in the ring
+            List<SaleRecord> history = saleRecordRepository.findBySaleTimestampBeforeOrderByIdDesc(startedAt, Limit.of(capacity));
+            mergeHistory(history);
+            mine.complete(null);
+        } catch (RuntimeException e) {
+            backfill.set(null); // let the next request retry
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private synchronized void mergeHistory(List<SaleRecord> newestFirst) {
+        List<SaleRecord> live = snapshot;
+        head = 0;
+        size = 0;
+        // Oldest history first, then the live sales on top
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            push(newestFirst.get(i));
+        }
+        for (int i = live.size() - 1; i >= 0; i--) {
+            push(live.get(i));
+        }
+        publish();
+        backfilled = true;
+    }
+
+    private void push(SaleRecord sale) {
+        ring[head] = sale;
+        head = (head + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+    }
+
+    private void publish() {
+        List<SaleRecord> newestFirst = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            newestFirst.add(ring[Math.floorMod(head - i, capacity)]);
+        }
+        snapshot = Collections.unmodifiableList(newestFirst);
+    }
+}
@@ -0,0 +1,32 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Cross-replica restock slots (table restock_in_flight), one per SKU. The upsert only takes a row that is free
+// or older than the caller's cutoff, so of several replicas claiming the same SKU at once exactly one wins.
+@Component
+public class RestockClaimStore {
+
+    private static final String CLAIM_SQL = """
+            INSERT INTO restock_in_flight (sku, restock_id, dispatched_at_millis) VALUES (?, ?, ?)
+            ON CONFLICT (sku) DO UPDATE SET restock_id = EXCLUDED.restock_id, dispatched_at_millis = EXCLUDED.dispatched_at_millis
+            WHERE restock_in_flight.dispatched_at_millis <= ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RestockClaimStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // True if restockId now holds the SKU's slot; a claim dispatched at or before expiredBeforeMillis is taken over
+    public boolean claim(String sku, String restockId, long nowMillis, long expiredBeforeMillis) {
+        return jdbcTemplate.update(CLAIM_SQL, sku, restockId, nowMillis, expiredBeforeMillis) == 1;
+    }
+
+    // Only the matching restock frees the slot
+    public void release(String sku, String restockId) {
+        jdbcTemplate.update("DELETE FROM restock_in_flight WHERE sku = ? AND restock_id = ?", sku, restockId);
+    }
+}
@@ -0,0 +1,38 @@
+package com.predictive.inventoryservice;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+public class RestockEvent {
+    // Idempotency key: the listener applies each restockId at most once (null from legacy producers)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String restockId;
+    private String sku;
+    private int quantity;
+    // Location receiving the delivery (null = let StockRouter pick the emptiest one)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String location;
+
+    public RestockEvent() {
+    }
+
+    public RestockEvent(String sku, int quantity) {
+        this.sku = sku;
+        this.quantity = quantity;
+    }
+
+    public RestockEvent(String restockId, String sku, int quantity) {
+        this.restockId = restockId;
+        this.sku = sku;
+        this.quantity = quantity;
+    }
+
+    public String getRestockId() { return restockId; }
+    public void setRestockId(String restockId) { this.restockId = restockId; }
+
+    public String getSku() { return sku; }
+    public void setSku(String sku) { this.sku = sku; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+}
@@ -0,0 +1,67 @@
+package com.predictive.inventoryservice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// At most one restock per SKU on its way to the warehouse, across all replicas.
+// RestockScheduler claims a SKU before dispatching and RestockListener releases it when that exact restock
+// (by restockId) is delivered, so a SKU that stays at risk while the truck is out does not trigger more trucks.
+// Every replica runs the scheduler over the same at-risk SKUs, so the claim that counts is the row in Postgres
+// (RestockClaimStore); the map only saves this replica a round trip for the SKUs it dispatched itself.
+// The timeout is only a safety net for restocks that never come back (lost message).
+@Component
+public class RestockInFlightRegistry {
+
+    public record InFlight(String restockId, long dispatchedAtMillis) {}
+
+    private final Map<String, InFlight> inFlightBySku = new ConcurrentHashMap<>();
+    private final RestockClaimStore restockClaimStore;
+    private final long timeoutMillis;
+
+    public RestockInFlightRegistry(RestockClaimStore restockClaimStore, MeterRegistry meterRegistry,
+                                   @Value("${restock.in-flight-timeout-ms:300000}") long timeoutMillis) {
+        this.restockClaimStore = restockClaimStore;
+        this.timeoutMillis = timeoutMillis;
+        meterRegistry.gaugeMapSize("restock.in-flight", Tags.empty(), inFlightBySku);
+    }
+
+    // True if the caller now owns the SKU's restock slot (none in flight, or the previous one timed out)
+    public boolean tryClaim(String sku, String restockId, long nowMillis) {
+        InFlight claim = new InFlight(restockId, nowMillis);
+        InFlight current = inFlightBySku.compute(sku, (key, existing) ->
+                existing == null || nowMillis - existing.dispatchedAtMillis() >= timeoutMillis ? claim : existing);
+        if (current != claim) {
+            return false;
+        }
+        if (!restockClaimStore.claim(sku, restockId, nowMillis, nowMillis - timeoutMillis)) {
+            inFlightBySku.remove(sku, claim); // another replica's truck is on its way
+            return false;
+        }
+        return true;
+    }
+
+    // Delivered (on whichever replica consumed it), or the dispatch itself failed: only the matching restock
+    // frees the slot
+    public void release(String sku, String restockId) {
+        inFlightBySku.computeIfPresent(sku, (key, existing) -> existing.restockId().equals(restockId) ? null : existing);
+        restockClaimStore.release(sku, restockId);
+    }
+
+    // Drops timed-out claims so the map stays bounded by what is really on its way
+    public void expire(long nowMillis) {
+        inFlightBySku.values().removeIf(inFlight -> nowMillis - inFlight.dispatchedAtMillis() >= timeoutMillis);
+    }
+
+    public boolean isInFlight(String sku) {
+        return inFlightBySku.containsKey(sku);
+    }
+
+    public int size() {
+        return inFlightBySku.size();
+    }
+}
@@ -1,42 +1,94 @@
 package com.predictive.inventoryservice;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 @Service
 public class RestockListener {
 
-    private final InventoryRepository inventoryRepository;
-    private final SimpMessagingTemplate messagingTemplate;
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    public RestockListener(InventoryRepository inventoryRepository, SimpMessagingTemplate messagingTemplate) {
-        this.inventoryRepository = inventoryRepository;
-        this.messagingTemplate = messagingTemplate;
-    }
+    static final String RESTOCK_TOPIC = "warehouse-restock";
 
-    @KafkaListener(topics = "warehouse-restock", groupId = "restock-group-v1")
-    public void handleRestock(String rawJson) {
-        try {
-            // We can reuse our OrderEvent class to parse the JSON
-            OrderEvent restockEvent = objectMapper.readValue(rawJson, OrderEvent.class);
+    private static final LogAccessor LOGGER = new LogAccessor(RestockListener.class);
 
-            System.out.println("🚛 WAREHOUSE WOKE UP! Delivering " + restockEvent.getQuantity() + " units of " + restockEvent.getSku());
+    private final InventoryBatchService inventoryBatchService;
+    private final InventoryItemCache inventoryItemCache;
+    private final InventoryBroadcaster inventoryBroadcaster;
+    private final RestockRiskIndex restockRiskIndex;
+    private final InventoryReadModel inventoryReadModel;
+    private final StockLevelPublisher stockLevelPublisher;
+    private final RestockInFlightRegistry inFlightRegistry;
+    private final ProcessedRestockRepository processedRestockRepository;
+    private final Timer consumerLag;
+    private final Timer dbWrite;
+    private final Timer cacheUpdate;
+    private final Counter duplicates;
+    private final Duration processedRetention;
 
-            // 1. Surgically add the stock
-            inventoryRepository.addStock(restockEvent.getSku(), restockEvent.getQuantity());
+    public RestockListener(InventoryBatchService inventoryBatchService, InventoryItemCache inventoryItemCache,
+                           InventoryBroadcaster inventoryBroadcaster, RestockRiskIndex restockRiskIndex,
+                           InventoryReadModel inventoryReadModel,
+                           StockLevelPublisher stockLevelPublisher,
+                           RestockInFlightRegistry inFlightRegistry, ProcessedRestockRepository processedRestockRepository,
+                           PipelineMetrics pipelineMetrics, MeterRegistry meterRegistry,
+                           @Value("${restock.processed-retention-hours:168}") long processedRetentionHours) {
+        this.inventoryBatchService = inventoryBatchService;
+        this.inventoryItemCache = inventoryItemCache;
+        this.inventoryBroadcaster = inventoryBroadcaster;
+        this.restockRiskIndex = restockRiskIndex;
+        this.inventoryReadModel = inventoryReadModel;
+        this.stockLevelPublisher = stockLevelPublisher;
+        this.inFlightRegistry = inFlightRegistry;
+        this.processedRestockRepository = processedRestockRepository;
+        this.consumerLag = pipelineMetrics.consumerLag(RESTOCK_TOPIC);
+        this.dbWrite = pipelineMetrics.stage("db-write", RESTOCK_TOPIC);
+        this.cacheUpdate = pipelineMetrics.stage("cache", RESTOCK_TOPIC);
+        this.duplicates = meterRegistry.counter("restock.duplicates");
+        this.processedRetention = Duration.ofHours(processedRetentionHours);
+    }
 
-            // 2. Fetch the fresh item and broadcast it to React
-            inventoryRepository.findBySku(restockEvent.getSku()).ifPresent(item -> {
-                messagingTemplate.convertAndSend("/topic/inventory", item);
-                System.out.println("✅ RESTOCK COMPLETE! " + item.getSku() + " is back up to " + item.getQuantity());
-                System.out.println("=================================================");
-            });
+    // Decoded straight from bytes (KafkaConfig); bad messages and repeated failures land on warehouse-restock-dlt
+    @KafkaListener(topics = RESTOCK_TOPIC, groupId = "restock-group-v1")
+    public void handleRestock(RestockEvent restockEvent, @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp) {
+        PipelineMetrics.recordConsumerLag(consumerLag, timestamp, System.currentTimeMillis());
 
-        } catch (Exception e) {
-            System.out.println("⚠️ Failed to process restock event.");
+        // 1. Add the stock (routed to a location, see InventoryBatchService) and read back the new totals.
+        //    With a restockId this happens at most once per id, however often Kafka delivers it.
+        // 2. Refresh the near-cache and broadcast it to React
+        String restockId = restockEvent.getRestockId();
+        Optional<InventoryItem> restocked = dbWrite.record(() -> inventoryBatchService.applyRestock(
+                restockId, restockEvent.getSku(), restockEvent.getLocation(), restockEvent.getQuantity()));
+        if (restockId != null) {
+            inFlightRegistry.release(restockEvent.getSku(), restockId); // the next shortage may dispatch again
+            if (restocked.isEmpty()) {
+                duplicates.increment();
+                LOGGER.debug(() -> "Restock " + restockId + " for " + restockEvent.getSku() + " already applied (or unknown SKU), skipped");
+            }
         }
+        restocked.ifPresent(item -> {
+            cacheUpdate.record(() -> inventoryItemCache.updated(item));
+            restockRiskIndex.update(item);
+            inventoryReadModel.update(item);
+            inventoryBroadcaster.publish(item);
+            stockLevelPublisher.stockChanged(item);
+            LOGGER.info(() -> "Restock delivered: " + restockEvent.getQuantity() + " units of " + item.getSku()
+                    + ", now " + item.getQuantity());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${restock.processed-prune-interval-ms:3600000}")
+    public void pruneProcessedRestocks() {
+        processedRestockRepository.deleteProcessedBefore(LocalDateTime.now().minus(processedRetention));
     }
-}
\ No newline at end of file
+}
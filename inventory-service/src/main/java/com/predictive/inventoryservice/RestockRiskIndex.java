@@ -0,0 +1,116 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// In-memory priority index of every SKU ordered by estimated minutes to empty (quantity / aiVelocity).
+// Kept current from the same write paths that refresh the near-cache (orders, restocks, velocity updates),
+// so "which SKUs run out first" is a walk from the head of a tree instead of a DB read per prediction.
+@Component
+public class RestockRiskIndex {
+
+    private static final int SEED_PAGE_SIZE = 1000;
+
+    // Ordered by (minutesToEmpty, sku); SKUs with no velocity sort last (infinite time to empty)
+    private final TreeSet<RiskEntry> byTimeToEmpty = new TreeSet<>(
+            Comparator.comparingDouble(RiskEntry::minutesToEmpty).thenComparing(RiskEntry::sku));
+    private final Map<String, RiskEntry> bySku = new HashMap<>();
+
+    private final InventoryRepository inventoryRepository;
+
+    public RestockRiskIndex(InventoryRepository inventoryRepository) {
+        this.inventoryRepository = inventoryRepository;
+    }
+
+    public record RiskEntry(String sku, int quantity, double aiVelocity, double minutesToEmpty) {
+    }
+
+    // Cold start (no snapshot, see InventorySnapshotService): load every SKU a keyset page at a time;
+    // after that updates are incremental
+    public void seed() {
+        String cursor = "";
+        while (cursor != null) {
+            List<InventorySummary> page = inventoryRepository.findBySkuGreaterThanOrderBySkuAsc(cursor, Limit.of(SEED_PAGE_SIZE));
+            page.forEach(row -> update(row.sku(), row.quantity(), row.aiVelocity()));
+            cursor = InventoryPageService.nextCursor(page, SEED_PAGE_SIZE);
+        }
+    }
+
+    public void update(InventoryItem item) {
+        update(item.getSku(), item.getQuantity(), item.getAiVelocity());
+    }
+
+    public void update(Collection<InventoryItem> items) {
+        items.forEach(this::update);
+    }
+
+    // O(log n): drop the old position, insert the new one
+    public synchronized void update(String sku, Integer quantity, Double aiVelocity) {
+        int stock = quantity == null ? 0 : quantity;
+        double velocity = aiVelocity == null ? 0.0 : aiVelocity;
+        RiskEntry entry = new RiskEntry(sku, stock, velocity, minutesToEmpty(stock, velocity));
+
+        RiskEntry previous = bySku.put(sku, entry);
+        if (previous != null) {
+            byTimeToEmpty.remove(previous);
+        }
+        byTimeToEmpty.add(entry);
+    }
+
+    public synchronized void remove(String sku) {
+        RiskEntry previous = bySku.remove(sku);
+        if (previous != null) {
+            byTimeToEmpty.remove(previous);
+        }
+    }
+
+    // The N SKUs closest to running out (only SKUs that are actually selling)
+    public synchronized List<RiskEntry> topAtRisk(int limit) {
+        List<RiskEntry> result = new ArrayList<>(Math.min(limit, bySku.size()));
+        for (RiskEntry entry : byTimeToEmpty) {
+            if (result.size() >= limit || Double.isInfinite(entry.minutesToEmpty())) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    // SKUs that run out within maxMinutes AND hold at most maxQuantity units; stops at the first SKU past the horizon
+    public List<RiskEntry> atRisk(double maxMinutes, int maxQuantity, int limit) {
+        return atRisk(null, maxMinutes, maxQuantity, limit);
+    }
+
+    // The same, ranked after the given entry (null = from the head), so callers can page through without holding the index
+    public synchronized List<RiskEntry> atRisk(RiskEntry after, double maxMinutes, int maxQuantity, int limit) {
+        List<RiskEntry> result = new ArrayList<>();
+        for (RiskEntry entry : after == null ? byTimeToEmpty : byTimeToEmpty.tailSet(after, false)) {
+            if (result.size() >= limit || entry.minutesToEmpty() > maxMinutes) {
+                break;
+            }
+            if (entry.quantity() <= maxQuantity) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return bySku.size();
+    }
+
+    static double minutesToEmpty(int quantity, double velocityPerMinute) {
+        if (velocityPerMinute <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max(quantity, 0) / velocityPerMinute;
+    }
+}
@@ -0,0 +1,110 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// --- THE AUTONOMOUS BRAIN ---
+// Scans the head of the RestockRiskIndex on a fixed delay and dispatches restock orders for every SKU
+// that crosses the configured thresholds, whether or not a prediction for it arrived recently.
+// Each restock carries a fresh restockId (the listener applies it once) and holds the SKU's slot in the
+// RestockInFlightRegistry until it is delivered, so a SKU gets one truck at a time, not one per scan or replica.
+// Thresholds apply to the SKU's total; the restock names no location, so the listener delivers it to
+// whichever location holds the least of the SKU (StockRouter).
+@Component
+@ConditionalOnProperty(name = "restock.enabled", havingValue = "true", matchIfMissing = true)
+public class RestockScheduler {
+
+    private static final LogAccessor LOGGER = new LogAccessor(RestockScheduler.class);
+
+    private final RestockRiskIndex restockRiskIndex;
+    private final RestockInFlightRegistry inFlightRegistry;
+    private final KafkaTemplate<String, RestockEvent> kafkaTemplate;
+    private final double maxMinutesToEmpty;
+    private final int maxQuantity;
+    private final double targetCoverMinutes;
+    private final int minOrder;
+    private final int maxOrder;
+    private final int maxPerScan;
+
+    public RestockScheduler(RestockRiskIndex restockRiskIndex,
+                            RestockInFlightRegistry inFlightRegistry,
+                            KafkaTemplate<String, RestockEvent> kafkaTemplate,
+                            @Value("${restock.max-minutes-to-empty:10}") double maxMinutesToEmpty,
+                            @Value("${restock.max-quantity:30}") int maxQuantity,
+                            @Value("${restock.target-cover-minutes:60}") double targetCoverMinutes,
+                            @Value("${restock.min-order:20}") int minOrder,
+                            @Value("${restock.max-order:5000}") int maxOrder,
+                            @Value("${restock.max-per-scan:100}") int maxPerScan) {
+        this.restockRiskIndex = restockRiskIndex;
+        this.inFlightRegistry = inFlightRegistry;
+        this.kafkaTemplate = kafkaTemplate;
+        this.maxMinutesToEmpty = maxMinutesToEmpty;
+        this.maxQuantity = maxQuantity;
+        this.targetCoverMinutes = targetCoverMinutes;
+        this.minOrder = minOrder;
+        this.maxOrder = maxOrder;
+        this.maxPerScan = maxPerScan;
+    }
+
+    @Scheduled(fixedDelayString = "${restock.scan-interval-ms:1000}")
+    public void scan() {
+        scan(System.currentTimeMillis());
+    }
+
+    // Returns the SKUs a restock was dispatched for: up to maxPerScan, walking down the ranking past SKUs whose
+    // truck is still on its way, so a head full of in-flight SKUs never starves the ones ranked below them
+    List<String> scan(long nowMillis) {
+        inFlightRegistry.expire(nowMillis);
+        List<String> dispatched = new ArrayList<>();
+        RestockRiskIndex.RiskEntry last = null;
+        while (dispatched.size() < maxPerScan) {
+            List<RestockRiskIndex.RiskEntry> candidates = restockRiskIndex.atRisk(last, maxMinutesToEmpty, maxQuantity, maxPerScan);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            for (RestockRiskIndex.RiskEntry entry : candidates) {
+                if (dispatched.size() == maxPerScan) {
+                    break;
+                }
+                if (dispatch(entry, nowMillis)) {
+                    dispatched.add(entry.sku());
+                }
+            }
+            last = candidates.get(candidates.size() - 1);
+        }
+        return dispatched;
+    }
+
+    private boolean dispatch(RestockRiskIndex.RiskEntry entry, long nowMillis) {
+        String restockId = UUID.randomUUID().toString();
+        if (!inFlightRegistry.tryClaim(entry.sku(), restockId, nowMillis)) {
+            return false; // the previous truck is still on its way
+        }
+        int quantity = orderQuantity(entry);
+        LOGGER.warn(() -> entry.sku() + " depleting in " + String.format("%.1f", entry.minutesToEmpty())
+                + " mins, dispatching a restock of " + quantity);
+
+        // Fire a message to the 'warehouse-restock' topic! If it never gets there, free the slot for the next scan.
+        kafkaTemplate.send(RestockListener.RESTOCK_TOPIC, entry.sku(), new RestockEvent(restockId, entry.sku(), quantity))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        inFlightRegistry.release(entry.sku(), restockId);
+                    }
+                });
+        return true;
+    }
+
+    // Enough to cover targetCoverMinutes of sales at the forecast velocity (units/min), minus what is on the shelf
+    int orderQuantity(RestockRiskIndex.RiskEntry entry) {
+        double needed = Math.ceil(entry.aiVelocity() * targetCoverMinutes) - entry.quantity();
+        return (int) Math.max(minOrder, Math.min(maxOrder, needed));
+    }
+}
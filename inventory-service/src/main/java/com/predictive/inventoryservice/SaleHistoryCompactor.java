@@ -0,0 +1,93 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// Retention job for sale_record, which is partitioned by day (V6): creates the days ahead before any sale
+// lands in them, and drops whole days once they are past the retention window, detaching the partition first
+// so the drop never holds a lock on the table the write-behind COPY is filling. Their totals already live in
+// the minute/hour/day rollups (SalesRollupWriter keeps those current as orders are consumed).
+// A day goes only once all of it is past the cutoff, so raw sales are kept for raw-days and up to a day more.
+@Component
+public class SaleHistoryCompactor {
+
+    private static final LogAccessor LOGGER = new LogAccessor(SaleHistoryCompactor.class);
+
+    private static final String PARTITION_PREFIX = "sale_record_p";
+    private static final DateTimeFormatter PARTITION_DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String PARTITIONS_SQL = """
+            SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'sale_record'::regclass
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long rawRetentionDays;
+    private final int aheadDays;
+
+    public SaleHistoryCompactor(JdbcTemplate jdbcTemplate,
+                                @Value("${sales.retention.raw-days:7}") long rawRetentionDays,
+                                @Value("${sales.retention.partitions-ahead-days:7}") int aheadDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rawRetentionDays = rawRetentionDays;
+        this.aheadDays = aheadDays;
+    }
+
+    @Scheduled(fixedDelayString = "${sales.retention.interval-ms:3600000}", initialDelayString = "${sales.retention.initial-delay-ms:60000}")
+    public void compact() {
+        LocalDate today = LocalDate.now();
+        createPartitions(today, today.plusDays(aheadDays));
+        compactOlderThan(LocalDateTime.now().minusDays(rawRetentionDays));
+    }
+
+    // One partition per day from..to (inclusive); days that already have one are left alone
+    public void createPartitions(LocalDate from, LocalDate to) {
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition(day) + " PARTITION OF sale_record"
+                    + " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+        }
+    }
+
+    // Returns how many days of raw sales were dropped
+    public int compactOlderThan(LocalDateTime cutoff) {
+        int dropped = 0;
+        for (String partition : jdbcTemplate.queryForList(PARTITIONS_SQL, String.class)) {
+            LocalDate day = dayOf(partition);
+            if (day != null && !day.plusDays(1).atStartOfDay().isAfter(cutoff)) {
+                jdbcTemplate.execute("ALTER TABLE sale_record DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                dropped++;
+            }
+        }
+
+        if (dropped > 0) {
+            int days = dropped;
+            LOGGER.info(() -> "Sale history compacted: " + days + " days of raw sales before " + cutoff.toLocalDate());
+        }
+        return dropped;
+    }
+
+    private static String partition(LocalDate day) {
+        return PARTITION_PREFIX + PARTITION_DAY.format(day);
+    }
+
+    // Null for anything attached by hand under another name: not ours to drop
+    private static LocalDate dayOf(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_DAY);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
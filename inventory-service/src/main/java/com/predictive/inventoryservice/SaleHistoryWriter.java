@@ -0,0 +1,171 @@
+package com.predictive.inventoryservice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+
+// Write-behind buffer for sale history.
+// The order consumer only enqueues; a background flush streams whole batches into
+// sale_record with Postgres COPY (one round trip per batch, the IDENTITY key is filled server-side).
+// Each COPY commits together with the order-events offsets its sales end at (OFFSETS_TOPIC in consumer_offset),
+// so sales still buffered when the process dies are replayed from there after the restart (InventoryListener),
+// and appendedOffset keeps a redelivered poll from being written twice.
+// A batch whose COPY fails goes back to the front of the buffer for the next flush; only what no longer fits
+// there (the consumer kept appending while Postgres was down) is dropped, and counted in sales.history.dropped.
+@Component
+public class SaleHistoryWriter {
+
+    private static final LogAccessor LOGGER = new LogAccessor(SaleHistoryWriter.class);
+
+    private static final String COPY_SQL =
+            "COPY sale_record (sku, quantity_sold, sale_timestamp) FROM STDIN WITH (FORMAT csv)";
+
+    // consumer_offset rows for the order-events offsets whose sales are in sale_record
+    public static final String OFFSETS_TOPIC = InventoryListener.ORDER_EVENTS_TOPIC + ".sale-history";
+
+    // offsets is set on the last sale of an appended batch only
+    private record Pending(SaleRecord sale, Map<Integer, Long> offsets) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderOffsetStore orderOffsetStore;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingDeque<Pending> pending;
+    private final Map<Integer, Long> appendedOffsets = new ConcurrentHashMap<>();
+    private final int flushBatchSize;
+    private final Timer copyTimer;
+    private final Counter requeued;
+    private final Counter dropped;
+
+    public SaleHistoryWriter(JdbcTemplate jdbcTemplate, OrderOffsetStore orderOffsetStore,
+                             PlatformTransactionManager transactionManager,
+                             PipelineMetrics pipelineMetrics, MeterRegistry meterRegistry,
+                             @Value("${sales.write-behind.capacity:100000}") int capacity,
+                             @Value("${sales.write-behind.batch-size:5000}") int flushBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderOffsetStore = orderOffsetStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pending = new LinkedBlockingDeque<>(capacity);
+        this.flushBatchSize = flushBatchSize;
+        this.copyTimer = pipelineMetrics.stage("db-write", "sale-history");
+        this.requeued = meterRegistry.counter("sales.history.requeued");
+        this.dropped = meterRegistry.counter("sales.history.dropped");
+    }
+
+    public void append(List<SaleRecord> sales) {
+        append(sales, Map.of());
+    }
+
+    // Blocks when the buffer is full, which slows the consumer down instead of dropping history
+    public void append(List<SaleRecord> sales, Map<Integer, Long> nextOffsets) {
+        try {
+            for (int i = 0; i < sales.size(); i++) {
+                pending.put(new Pending(sales.get(i), i == sales.size() - 1 ? nextOffsets : Map.of()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while buffering sale history", e);
+        }
+        nextOffsets.forEach((partition, next) -> appendedOffsets.merge(partition, next, Math::max));
+    }
+
+    // Orders of this partition below the returned offset are in sale_record or on their way
+    public long appendedOffset(int partition) {
+        return appendedOffsets.getOrDefault(partition, Long.MIN_VALUE);
+    }
+
+    // Assignment: everything below flushed is in sale_record; returns where this partition's sales must be replayed from
+    public long resumeAt(int partition, long flushed) {
+        return appendedOffsets.merge(partition, flushed, Math::max);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    // Returns false if a COPY failed; that batch is back in the buffer and the rest waits for the next run.
+    // One flush at a time, so batches (and their offsets) commit in buffer order.
+    @Scheduled(fixedDelayString = "${sales.write-behind.flush-interval-ms:200}")
+    public synchronized boolean flush() {
+        List<Pending> batch = new ArrayList<>(flushBatchSize);
+        while (pending.drainTo(batch, flushBatchSize) > 0) {
+            try {
+                copyTimer.record(() -> copy(batch));
+            } catch (RuntimeException e) {
+                requeue(batch, e);
+                return false;
+            }
+            batch.clear();
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (!flush()) {
+            int lost = pending.size();
+            dropped.increment(lost);
+            LOGGER.error(() -> "Shutting down with " + lost + " sales not written to sale_record");
+        }
+    }
+
+    // Never blocks: the flush must not wait on the consumer it is meant to unblock. Back at the front, so no later
+    // batch commits its offsets first; what no longer fits is the oldest of the batch.
+    private void requeue(List<Pending> batch, RuntimeException cause) {
+        int kept = 0;
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            if (pending.offerFirst(batch.get(i))) {
+                kept++;
+            }
+        }
+        int lost = batch.size() - kept;
+        requeued.increment(kept);
+        dropped.increment(lost);
+        int retried = kept;
+        LOGGER.warn(cause, () -> "COPY into sale_record failed, " + retried + " sales requeued"
+                + (lost > 0 ? ", " + lost + " dropped (buffer full)" : ""));
+    }
+
+    private void copy(List<Pending> batch) {
+        StringBuilder csv = new StringBuilder(batch.size() * 48);
+        Map<Integer, Long> offsets = new HashMap<>();
+        for (Pending entry : batch) {
+            SaleRecord sale = entry.sale();
+            csv.append('"').append(sale.getSku().replace("\"", "\"\"")).append('"')
+                    .append(',').append(sale.getQuantitySold())
+                    .append(',').append(sale.getSaleTimestamp())
+                    .append('\n');
+            entry.offsets().forEach((partition, next) -> offsets.merge(partition, next, Math::max));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                try {
+                    return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, new StringReader(csv.toString()));
+                } catch (IOException e) {
+                    throw new IllegalStateException("COPY into sale_record failed", e);
+                }
+            });
+            orderOffsetStore.save(OFFSETS_TOPIC, offsets);
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.predictive.inventoryservice;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Per-minute, per-SKU sales aggregate, kept current by SalesRollupWriter as orders are consumed
+// (sale_hour_rollup and sale_day_rollup have the same shape). Raw SaleRecords past the retention
+// window are simply deleted, so the raw table stays bounded.
+@Entity
+@Table(name = "sale_minute_rollup")
+@IdClass(SaleMinuteRollup.Key.class)
+public class SaleMinuteRollup {
+
+    @Id
+    private String sku;
+
+    @Id
+    private LocalDateTime bucketStart;
+
+    private long unitsSold;
+    private long orderCount;
+
+    public SaleMinuteRollup() {}
+
+    public String getSku() { return sku; }
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public long getUnitsSold() { return unitsSold; }
+    public long getOrderCount() { return orderCount; }
+
+    public static class Key implements Serializable {
+        private String sku;
+        private LocalDateTime bucketStart;
+
+        public Key() {}
+
+        public Key(String sku, LocalDateTime bucketStart) {
+            this.sku = sku;
+            this.bucketStart = bucketStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            return Objects.equals(sku, other.sku) && Objects.equals(bucketStart, other.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sku, bucketStart);
+        }
+    }
+}
@@ -5,6 +5,12 @@ import java.time.LocalDateTime;
 import java.io.Serializable; // ⬅️ Import this
 
 @Entity
+@Table(indexes = {
+        // History lookups per SKU over a time range
+        @Index(name = "idx_sale_record_sku_ts", columnList = "sku, saleTimestamp"),
+        // Time-range reads (the table itself is partitioned by day, see SaleHistoryCompactor)
+        @Index(name = "idx_sale_record_ts", columnList = "saleTimestamp")
+})
 public class SaleRecord implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
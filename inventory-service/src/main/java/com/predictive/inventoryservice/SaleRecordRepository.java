@@ -1,8 +1,11 @@
 package com.predictive.inventoryservice;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -10,4 +13,7 @@ public interface SaleRecordRepository extends JpaRepository<SaleRecord, Long> {
 
     // Fetches the last 10 sales, ordered by ID descending to get the newest first
     List<SaleRecord> findTop10ByOrderByIdDesc();
+
+    // Backfill for the in-memory recent-sales feed: newest sales from before a point in time
+    List<SaleRecord> findBySaleTimestampBeforeOrderByIdDesc(LocalDateTime before, Limit limit);
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.predictive.inventoryservice;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// The rollup granularities SalesRollupWriter maintains, finest first
+public enum SalesResolution {
+    MINUTE("sale_minute_rollup", ChronoUnit.MINUTES),
+    HOUR("sale_hour_rollup", ChronoUnit.HOURS),
+    DAY("sale_day_rollup", ChronoUnit.DAYS);
+
+    private final String table;
+    private final ChronoUnit unit;
+
+    SalesResolution(String table, ChronoUnit unit) {
+        this.table = table;
+        this.unit = unit;
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public long seconds() {
+        return unit.getDuration().getSeconds();
+    }
+
+    public LocalDateTime bucketStart(LocalDateTime at) {
+        return at.truncatedTo(unit);
+    }
+
+    // Coarsest rollup that still resolves one step of the requested series
+    public static SalesResolution forStep(long stepSeconds) {
+        SalesResolution best = MINUTE;
+        for (SalesResolution resolution : values()) {
+            if (resolution.seconds() <= stepSeconds) {
+                best = resolution;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,160 @@
+package com.predictive.inventoryservice;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Incrementally maintained per-SKU sales rollups (minute, hour and day tables).
+// The order consumer folds each batch into per-minute totals in memory; a background flush upserts
+// what accumulated into all three tables, so a busy SKU costs one row write per table per flush, not per order.
+// The three upserts commit together with the order-events offsets the flushed sales end at (OFFSETS_TOPIC in
+// consumer_offset); if they fail, the minute totals and offsets go back into the pending maps and the next
+// flush writes them again, so the tables never disagree. Sales still pending when the process dies are
+// replayed from those offsets after the restart (InventoryListener), and appendedOffset keeps a redelivered
+// poll from being counted twice.
+@Component
+public class SalesRollupWriter {
+
+    private static final LogAccessor LOGGER = new LogAccessor(SalesRollupWriter.class);
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO %1$s (sku, bucket_start, units_sold, order_count) VALUES (?, ?, ?, ?)
+            ON CONFLICT (sku, bucket_start) DO UPDATE
+                SET units_sold = %1$s.units_sold + EXCLUDED.units_sold,
+                    order_count = %1$s.order_count + EXCLUDED.order_count
+            """;
+
+    record BucketKey(String sku, LocalDateTime bucketStart) implements Comparable<BucketKey> {
+        @Override
+        public int compareTo(BucketKey other) {
+            int bySku = sku.compareTo(other.sku);
+            return bySku != 0 ? bySku : bucketStart.compareTo(other.bucketStart);
+        }
+    }
+
+    record Totals(long unitsSold, long orderCount) {
+        Totals plus(Totals other) {
+            return new Totals(unitsSold + other.unitsSold, orderCount + other.orderCount);
+        }
+    }
+
+    // consumer_offset rows for the order-events offsets whose sales are in the rollup tables
+    public static final String OFFSETS_TOPIC = InventoryListener.ORDER_EVENTS_TOPIC + ".sale-rollups";
+
+    private final Map<BucketKey, Totals> pendingMinutes = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> pendingOffsets = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> appendedOffsets = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderOffsetStore orderOffsetStore;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer flushTimer;
+
+    public SalesRollupWriter(JdbcTemplate jdbcTemplate, OrderOffsetStore orderOffsetStore,
+                             PlatformTransactionManager transactionManager, PipelineMetrics pipelineMetrics) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderOffsetStore = orderOffsetStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushTimer = pipelineMetrics.stage("db-write", "sale-rollups");
+    }
+
+    public void append(List<SaleRecord> sales) {
+        append(sales, Map.of());
+    }
+
+    // Safe from several consumer threads: merge is atomic per bucket. The offsets go in after the sales, so a
+    // flush that takes them has every sale they cover.
+    public void append(List<SaleRecord> sales, Map<Integer, Long> nextOffsets) {
+        for (SaleRecord sale : sales) {
+            BucketKey minute = new BucketKey(sale.getSku(), SalesResolution.MINUTE.bucketStart(sale.getSaleTimestamp()));
+            pendingMinutes.merge(minute, new Totals(sale.getQuantitySold(), 1), Totals::plus);
+        }
+        nextOffsets.forEach((partition, next) -> {
+            pendingOffsets.merge(partition, next, Math::max);
+            appendedOffsets.merge(partition, next, Math::max);
+        });
+    }
+
+    // Orders of this partition below the returned offset are in the rollups or on their way
+    public long appendedOffset(int partition) {
+        return appendedOffsets.getOrDefault(partition, Long.MIN_VALUE);
+    }
+
+    // Assignment: everything below flushed is in the tables; returns where this partition's sales must be replayed from
+    public long resumeAt(int partition, long flushed) {
+        return appendedOffsets.merge(partition, flushed, Math::max);
+    }
+
+    public int pendingBuckets() {
+        return pendingMinutes.size();
+    }
+
+    @Scheduled(fixedDelayString = "${sales.rollup.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        // Offsets first: the sales of every append they came from are pending by now.
+        // remove() hands each bucket over atomically; appends that race it start a fresh bucket for the next flush
+        Map<Integer, Long> offsets = new HashMap<>();
+        for (Integer partition : pendingOffsets.keySet()) {
+            Long next = pendingOffsets.remove(partition);
+            if (next != null) {
+                offsets.put(partition, next);
+            }
+        }
+        Map<BucketKey, Totals> minutes = new TreeMap<>(); // sorted = consistent row-lock order
+        for (BucketKey key : pendingMinutes.keySet()) {
+            Totals totals = pendingMinutes.remove(key);
+            if (totals != null) {
+                minutes.merge(key, totals, Totals::plus);
+            }
+        }
+        if (minutes.isEmpty() && offsets.isEmpty()) {
+            return;
+        }
+
+        Map<BucketKey, Totals> hours = new TreeMap<>();
+        Map<BucketKey, Totals> days = new TreeMap<>();
+        minutes.forEach((key, totals) -> {
+            hours.merge(new BucketKey(key.sku(), SalesResolution.HOUR.bucketStart(key.bucketStart())), totals, Totals::plus);
+            days.merge(new BucketKey(key.sku(), SalesResolution.DAY.bucketStart(key.bucketStart())), totals, Totals::plus);
+        });
+
+        try {
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                upsert(SalesResolution.MINUTE, minutes);
+                upsert(SalesResolution.HOUR, hours);
+                upsert(SalesResolution.DAY, days);
+                orderOffsetStore.save(OFFSETS_TOPIC, offsets);
+            }));
+        } catch (RuntimeException e) {
+            // Rolled back as a whole: folding the totals back in loses nothing and counts nothing twice
+            minutes.forEach((key, totals) -> pendingMinutes.merge(key, totals, Totals::plus));
+            offsets.forEach((partition, next) -> pendingOffsets.merge(partition, next, Math::max));
+            LOGGER.warn(e, () -> "Sales rollup flush failed, " + minutes.size() + " minute buckets requeued");
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void upsert(SalesResolution resolution, Map<BucketKey, Totals> buckets) {
+        List<Object[]> rows = new ArrayList<>(buckets.size());
+        buckets.forEach((key, totals) -> rows.add(new Object[]{
+                key.sku(), Timestamp.valueOf(key.bucketStart()), totals.unitsSold(), totals.orderCount()}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL.formatted(resolution.table()), rows);
+    }
+}
@@ -0,0 +1,81 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Units sold per SKU over time, downsampled on the server to at most the requested number of points.
+// Reads the coarsest rollup table that resolves one step, so the rows scanned stay bounded by
+// points x (step / resolution) whether the range is an hour or a year; sale_record is never touched.
+@Service
+public class SalesSeriesService {
+
+    public static final int MAX_POINTS = 2000;
+
+    private static final String SERIES_SQL = """
+            SELECT FLOOR(EXTRACT(EPOCH FROM (bucket_start - ?)) / ?)::bigint AS bin,
+                   SUM(units_sold), SUM(order_count)
+            FROM %s
+            WHERE sku = ? AND bucket_start >= ? AND bucket_start < ?
+            GROUP BY bin
+            ORDER BY bin
+            """;
+
+    public record Point(LocalDateTime start, long unitsSold, long orderCount) {
+    }
+
+    public record Series(String sku, LocalDateTime from, LocalDateTime to, SalesResolution resolution,
+                         long stepSeconds, List<Point> points) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SalesSeriesService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Dense series: every step in [from, to) has a point, zero when nothing sold
+    public Series series(String sku, LocalDateTime from, LocalDateTime to, int maxPoints) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("'to' must be after 'from'");
+        }
+        int points = Math.max(1, Math.min(maxPoints, MAX_POINTS));
+
+        // One step covers whole buckets of the chosen rollup, so no bucket is split between two points
+        long rangeSeconds = Duration.between(from, to).getSeconds();
+        long wantedStep = Math.max(SalesResolution.MINUTE.seconds(), ceilDiv(rangeSeconds, points));
+        SalesResolution resolution = SalesResolution.forStep(wantedStep);
+        long stepSeconds = ceilDiv(wantedStep, resolution.seconds()) * resolution.seconds();
+        LocalDateTime start = resolution.bucketStart(from);
+        long alignedSeconds = Math.max(1, Duration.between(start, to).getSeconds());
+        while (ceilDiv(alignedSeconds, stepSeconds) > points) {
+            stepSeconds += resolution.seconds(); // aligning 'from' down can push us one point over
+        }
+        int bins = (int) ceilDiv(alignedSeconds, stepSeconds);
+
+        long[] units = new long[bins];
+        long[] orders = new long[bins];
+        jdbcTemplate.query(SERIES_SQL.formatted(resolution.table()), rs -> {
+            int bin = (int) rs.getLong(1);
+            if (bin >= 0 && bin < bins) {
+                units[bin] = rs.getLong(2);
+                orders[bin] = rs.getLong(3);
+            }
+        }, Timestamp.valueOf(start), stepSeconds, sku, Timestamp.valueOf(start), Timestamp.valueOf(to));
+
+        List<Point> series = new ArrayList<>(bins);
+        for (int bin = 0; bin < bins; bin++) {
+            series.add(new Point(start.plusSeconds(bin * stepSeconds), units[bin], orders[bin]));
+        }
+        return new Series(sku, start, to, resolution, stepSeconds, series);
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+}
@@ -0,0 +1,34 @@
+package com.predictive.inventoryservice;
+
+// One SKU's stock on the compacted inventory-stock topic (order-service builds its admission view from it).
+// appliedOffset is the order-events offset (on the SKU's partition) the quantity includes every order before;
+// -1 when the change did not come from orders (restocks), so it settles no reservations.
+public class StockLevel {
+    private String sku;
+    private int quantity;
+    private long revision;
+    private int partition = -1;
+    private long appliedOffset = -1;
+
+    public StockLevel() {
+    }
+
+    public StockLevel(String sku, int quantity, long revision, int partition, long appliedOffset) {
+        this.sku = sku;
+        this.quantity = quantity;
+        this.revision = revision;
+        this.partition = partition;
+        this.appliedOffset = appliedOffset;
+    }
+
+    public String getSku() { return sku; }
+    public void setSku(String sku) { this.sku = sku; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public long getRevision() { return revision; }
+    public void setRevision(long revision) { this.revision = revision; }
+    public int getPartition() { return partition; }
+    public void setPartition(int partition) { this.partition = partition; }
+    public long getAppliedOffset() { return appliedOffset; }
+    public void setAppliedOffset(long appliedOffset) { this.appliedOffset = appliedOffset; }
+}
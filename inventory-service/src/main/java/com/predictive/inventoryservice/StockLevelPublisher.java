@@ -0,0 +1,83 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Publishes every committed stock change to inventory-stock, a compacted topic keyed by SKU: the latest
+// record per SKU is the current level, so a reader that consumes it from the beginning has the whole catalogue.
+// order-service admits orders against that view (see StockView there) instead of asking this service.
+@Component
+public class StockLevelPublisher {
+
+    static final String STOCK_TOPIC = "inventory-stock";
+
+    private static final LogAccessor LOGGER = new LogAccessor(StockLevelPublisher.class);
+    private static final int REPUBLISH_PAGE_SIZE = 1000;
+
+    private final KafkaTemplate<String, StockLevel> kafkaTemplate;
+    private final InventoryRepository inventoryRepository;
+    private final boolean enabled;
+
+    public StockLevelPublisher(KafkaTemplate<String, StockLevel> kafkaTemplate, InventoryRepository inventoryRepository,
+                               @Value("${inventory.stock-topic.enabled:true}") boolean enabled) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.inventoryRepository = inventoryRepository;
+        this.enabled = enabled;
+    }
+
+    // After an order batch commits; appliedOffset settles the reservations order-service holds for these orders
+    public void ordersApplied(Collection<InventoryItem> items, Map<String, Integer> partitionBySku,
+                              Map<Integer, Long> nextOffsets) {
+        if (!enabled) {
+            return;
+        }
+        for (InventoryItem item : items) {
+            Integer partition = partitionBySku.get(item.getSku());
+            long appliedOffset = partition == null ? -1 : nextOffsets.getOrDefault(partition, -1L);
+            send(item, partition == null ? -1 : partition, appliedOffset);
+        }
+    }
+
+    // Restocks, velocity updates: a new level, but no orders to settle
+    public void stockChanged(InventoryItem item) {
+        if (enabled) {
+            send(item, -1, -1);
+        }
+    }
+
+    // Rows written while we were down (or before this topic existed) must reach the view too.
+    // Republishing is harmless: order-service ignores revisions it already has, and compaction drops the copies.
+    @EventListener(ApplicationReadyEvent.class)
+    public void republishAll() {
+        if (!enabled) {
+            return;
+        }
+        long published = 0;
+        List<InventorySummary> page = inventoryRepository.findBySkuGreaterThanOrderBySkuAsc("", Limit.of(REPUBLISH_PAGE_SIZE));
+        while (!page.isEmpty()) {
+            for (InventorySummary summary : page) {
+                long revision = summary.revision() == null ? 0 : summary.revision();
+                kafkaTemplate.send(STOCK_TOPIC, summary.sku(), new StockLevel(summary.sku(), summary.quantity(), revision, -1, -1));
+            }
+            published += page.size();
+            page = inventoryRepository.findBySkuGreaterThanOrderBySkuAsc(page.get(page.size() - 1).sku(), Limit.of(REPUBLISH_PAGE_SIZE));
+        }
+        long total = published;
+        LOGGER.info(() -> "Republished " + total + " stock levels to " + STOCK_TOPIC);
+    }
+
+    private void send(InventoryItem item, int partition, long appliedOffset) {
+        long revision = item.getRevision() == null ? 0 : item.getRevision();
+        kafkaTemplate.send(STOCK_TOPIC, item.getSku(),
+                new StockLevel(item.getSku(), item.getQuantity(), revision, partition, appliedOffset));
+    }
+}
@@ -0,0 +1,60 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// Picks the stock shard (location, see StockShardStore) a write goes to: the location the event names if it
+// is one of ours; otherwise orders ship from the default (first) location and restocks go to whichever
+// location holds the least of the SKU.
+// One shard per location: order-events is keyed by SKU, so a SKU's orders are applied by one consumer thread
+// and never contend with each other, while restocks and orders at other locations write other rows.
+@Component
+public class StockRouter {
+
+    private final List<String> locations;
+
+    // Where an order asks to be shipped from (location null = don't care), before routing
+    public record Target(String sku, String location) {
+    }
+
+    public StockRouter(@Value("${inventory.stock.locations:MAIN}") List<String> locations) {
+        if (locations.isEmpty()) {
+            throw new IllegalArgumentException("inventory.stock.locations needs at least one location");
+        }
+        this.locations = locations.stream().map(String::trim).toList();
+    }
+
+    public List<String> locations() {
+        return locations;
+    }
+
+    public String defaultLocation() {
+        return locations.get(0);
+    }
+
+    public StockShardStore.Shard orderShard(String sku, String requestedLocation) {
+        String location = isKnown(requestedLocation) ? requestedLocation : defaultLocation();
+        return new StockShardStore.Shard(sku, location);
+    }
+
+    // stockByLocation: the SKU's current stock per location (missing = none there yet)
+    public StockShardStore.Shard restockShard(String sku, String requestedLocation, Map<String, Integer> stockByLocation) {
+        String location = requestedLocation;
+        if (!isKnown(location)) {
+            location = defaultLocation();
+            for (String candidate : locations) {
+                if (stockByLocation.getOrDefault(candidate, 0) < stockByLocation.getOrDefault(location, 0)) {
+                    location = candidate;
+                }
+            }
+        }
+        return new StockShardStore.Shard(sku, location);
+    }
+
+    private boolean isKnown(String location) {
+        return location != null && locations.contains(location);
+    }
+}
@@ -0,0 +1,126 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+// Stock writes, one inventory_stock row (sku x location) at a time.
+// inventory_items stays the per-SKU catalogue row; readers get the sums through the inventory_levels view
+// (InventoryItem). A write locks only the shard row it changes, so orders and restocks of one SKU at different
+// locations never wait on each other, and nothing here locks the catalogue row. Writers read the sums back
+// after their commit (InventoryBatchService): every write committed before a read is in it, so of two reads of
+// a SKU the one with the higher revision (the sum of every shard's write counter) has seen all the other saw.
+// Orders floor each shard at zero, as the single quantity column used to (GREATEST(quantity - n, 0)): stock
+// sold that was not there is gone, not carried as debt a later restock would silently pay off, and the
+// per-location levels always add up to the total.
+@Component
+public class StockShardStore {
+
+    public record Shard(String sku, String location) implements Comparable<Shard> {
+
+        private static final Comparator<Shard> ORDER = Comparator.comparing(Shard::sku)
+                .thenComparing(Shard::location);
+
+        @Override
+        public int compareTo(Shard other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    // The first order of an unknown SKU creates its catalogue row, and only that order books the assumed
+    // initial stock (onto whichever shard it was routed to). Racing first orders: the loser's insert waits for
+    // the winner's row, creates nothing and just decrements.
+    private static final String DECREMENT_SQL = """
+            WITH created AS (
+                INSERT INTO inventory_items (sku, ai_velocity, revision) VALUES (?, 0, 0)
+                ON CONFLICT (sku) DO NOTHING
+                RETURNING sku
+            )
+            INSERT INTO inventory_stock (sku, location, quantity, revision)
+            VALUES (?, ?, GREATEST((SELECT COUNT(*) FROM created)::INTEGER * ? - ?, 0), 1)
+            ON CONFLICT (sku, location) DO UPDATE SET quantity = GREATEST(inventory_stock.quantity - ?, 0),
+                                                              revision = inventory_stock.revision + 1
+            """;
+    // Restocks only land on SKUs we know (as the old UPDATE did)
+    private static final String ADD_SQL = """
+            INSERT INTO inventory_stock (sku, location, quantity, revision)
+            SELECT sku, ?, ?, 1 FROM inventory_items WHERE sku = ?
+            ON CONFLICT (sku, location) DO UPDATE SET quantity = inventory_stock.quantity + EXCLUDED.quantity,
+                                                              revision = inventory_stock.revision + 1
+            """;
+    // Exactly-once restock: claim the idempotency key and add the stock in ONE statement (so one transaction).
+    // A restockId that was already processed, or one for an unknown SKU, claims nothing and adds nothing.
+    private static final String RESTOCK_SQL = """
+            WITH claimed AS (
+                INSERT INTO processed_restock (restock_id, sku, quantity, processed_at)
+                SELECT ?, sku, ?, now() FROM inventory_items WHERE sku = ?
+                ON CONFLICT (restock_id) DO NOTHING
+                RETURNING sku, quantity
+            )
+            INSERT INTO inventory_stock (sku, location, quantity, revision)
+            SELECT claimed.sku, ?, claimed.quantity, 1
+            FROM claimed
+            ON CONFLICT (sku, location) DO UPDATE SET quantity = inventory_stock.quantity + EXCLUDED.quantity,
+                                                              revision = inventory_stock.revision + 1
+            """;
+    private static final String STOCK_BY_LOCATION_SQL =
+            "SELECT location, SUM(quantity) FROM inventory_stock WHERE sku = ? GROUP BY location";
+    private static final String REGISTER_SQL =
+            "INSERT INTO inventory_items (sku, ai_velocity, revision) VALUES (?, 0, 0) ON CONFLICT (sku) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockShardStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Current stock per location, for routing restocks
+    public Map<String, Integer> stockByLocation(String sku) {
+        Map<String, Integer> stock = new HashMap<>();
+        jdbcTemplate.query(STOCK_BY_LOCATION_SQL, rs -> {
+            stock.put(rs.getString(1), rs.getInt(2));
+        }, sku);
+        return stock;
+    }
+
+    // One JDBC batch for a whole poll; sorted so concurrent batches lock shards in the same order (no deadlocks).
+    // Joins the caller's transaction if there is one.
+    public void decrement(SortedMap<Shard, Integer> amounts, int initialStock) {
+        List<Object[]> rows = new ArrayList<>(amounts.size());
+        amounts.forEach((shard, amount) ->
+                rows.add(new Object[]{shard.sku(), shard.sku(), shard.location(), initialStock, amount, amount}));
+        jdbcTemplate.batchUpdate(DECREMENT_SQL, rows);
+    }
+
+    // False if the SKU is unknown
+    public boolean add(Shard shard, int amount) {
+        return jdbcTemplate.update(ADD_SQL, shard.location(), amount, shard.sku()) > 0;
+    }
+
+    // False if restockId was applied before (or the SKU is unknown)
+    public boolean applyRestock(String restockId, Shard shard, int amount) {
+        return jdbcTemplate.update(RESTOCK_SQL, restockId, amount, shard.sku(), shard.location()) > 0;
+    }
+
+    // Onboards a new SKU with its opening stock on one shard. False (and nothing written) if the SKU exists.
+    // Joins the caller's transaction if there is one.
+    public boolean create(Shard shard, int quantity) {
+        if (jdbcTemplate.update(REGISTER_SQL, shard.sku()) == 0) {
+            return false;
+        }
+        add(shard, quantity);
+        return true;
+    }
+
+    // Adds a SKU to the catalogue with the given stock on one shard (no-op for the catalogue row if it exists)
+    public void register(Shard shard, int quantity) {
+        jdbcTemplate.update(REGISTER_SQL, shard.sku());
+        add(shard, quantity);
+    }
+}
@@ -0,0 +1,171 @@
+package com.predictive.inventoryservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Streaming per-SKU sales velocity.
+// Every consumed order updates a few primitives in O(1), so nobody ever has to load the
+// SaleRecord history from Postgres just to get one number.
+@Component
+public class VelocityEngine {
+
+    // Sliding window of 1-second buckets used for the "last minute" rate
+    static final int WINDOW_SECONDS = 60;
+
+    private final Map<String, SkuVelocity> velocities = new ConcurrentHashMap<>();
+    private final double decaySeconds;
+
+    public VelocityEngine(@Value("${inventory.velocity.decay-seconds:60}") double decaySeconds) {
+        this.decaySeconds = decaySeconds;
+    }
+
+    public void record(String sku, int quantity, long epochMillis) {
+        velocities.computeIfAbsent(sku, key -> new SkuVelocity(decaySeconds)).record(quantity, epochMillis);
+    }
+
+    // Exponentially-decayed units/second: reacts to the current trend, forgets old spikes
+    public double velocityPerSecond(String sku) {
+        return velocityPerSecond(sku, System.currentTimeMillis());
+    }
+
+    public double velocityPerSecond(String sku, long nowMillis) {
+        SkuVelocity velocity = velocities.get(sku);
+        return velocity == null ? 0.0 : velocity.decayedRate(nowMillis);
+    }
+
+    // Units/second over the last WINDOW_SECONDS seconds
+    public double windowVelocityPerSecond(String sku, long nowMillis) {
+        SkuVelocity velocity = velocities.get(sku);
+        return velocity == null ? 0.0 : velocity.windowRate(nowMillis);
+    }
+
+    // Same answer as PredictiveService.calculateVelocity(history), without the history
+    public double lifetimeVelocityPerSecond(String sku) {
+        SkuVelocity velocity = velocities.get(sku);
+        return velocity == null ? 0.0 : velocity.lifetimeRate();
+    }
+
+    public long totalUnitsSold(String sku) {
+        SkuVelocity velocity = velocities.get(sku);
+        return velocity == null ? 0L : velocity.totalUnits();
+    }
+
+    // Snapshot support (InventorySnapshotService). The 1-second window is not carried over:
+    // it is a minute wide, so after a restart it refills from the replayed tail.
+    public record State(long totalUnits, long saleCount, long firstSaleMillis, long lastSaleMillis,
+                        double decayedRate, long decayedAtMillis) {
+    }
+
+    public Map<String, State> exportState() {
+        Map<String, State> states = new HashMap<>(velocities.size());
+        velocities.forEach((sku, velocity) -> states.put(sku, velocity.state()));
+        return states;
+    }
+
+    public void restore(String sku, State state) {
+        SkuVelocity velocity = new SkuVelocity(decaySeconds);
+        velocity.restore(state);
+        velocities.put(sku, velocity);
+    }
+
+    static final class SkuVelocity {
+        private final double decaySeconds;
+
+        // Lifetime running sums
+        private long totalUnits;
+        private long saleCount;
+        private long firstSaleMillis;
+        private long lastSaleMillis;
+
+        // Exponentially-decayed rate (units/second) as of decayedAtMillis
+        private double decayedRate;
+        private long decayedAtMillis;
+
+        // Ring of per-second buckets; bucketSecond tells us whether a slot is still inside the window
+        private final long[] bucketUnits = new long[WINDOW_SECONDS];
+        private final long[] bucketSecond = new long[WINDOW_SECONDS];
+
+        SkuVelocity(double decaySeconds) {
+            this.decaySeconds = decaySeconds;
+            Arrays.fill(bucketSecond, Long.MIN_VALUE);
+        }
+
+        synchronized void record(int quantity, long epochMillis) {
+            if (saleCount == 0) {
+                firstSaleMillis = epochMillis;
+                decayedAtMillis = epochMillis;
+            }
+            saleCount++;
+            totalUnits += quantity;
+            lastSaleMillis = Math.max(lastSaleMillis, epochMillis);
+
+            decayedRate = decayTo(epochMillis) + quantity / decaySeconds;
+            decayedAtMillis = Math.max(decayedAtMillis, epochMillis);
+
+            long second = epochMillis / 1000;
+            int slot = (int) Math.floorMod(second, (long) WINDOW_SECONDS);
+            if (bucketSecond[slot] != second) {
+                bucketSecond[slot] = second;
+                bucketUnits[slot] = 0;
+            }
+            bucketUnits[slot] += quantity;
+        }
+
+        synchronized double decayedRate(long nowMillis) {
+            return saleCount == 0 ? 0.0 : decayTo(nowMillis);
+        }
+
+        synchronized double windowRate(long nowMillis) {
+            long nowSecond = nowMillis / 1000;
+            long units = 0;
+            for (int i = 0; i < WINDOW_SECONDS; i++) {
+                long age = nowSecond - bucketSecond[i];
+                if (age >= 0 && age < WINDOW_SECONDS) {
+                    units += bucketUnits[i];
+                }
+            }
+            return (double) units / WINDOW_SECONDS;
+        }
+
+        synchronized double lifetimeRate() {
+            if (saleCount < 2) {
+                return 0.0;
+            }
+            long secondsElapsed = (lastSaleMillis - firstSaleMillis) / 1000;
+            if (secondsElapsed <= 0) {
+                secondsElapsed = 1;
+            }
+            return (double) totalUnits / secondsElapsed;
+        }
+
+        synchronized long totalUnits() {
+            return totalUnits;
+        }
+
+        synchronized State state() {
+            return new State(totalUnits, saleCount, firstSaleMillis, lastSaleMillis, decayedRate, decayedAtMillis);
+        }
+
+        synchronized void restore(State state) {
+            totalUnits = state.totalUnits();
+            saleCount = state.saleCount();
+            firstSaleMillis = state.firstSaleMillis();
+            lastSaleMillis = state.lastSaleMillis();
+            decayedRate = state.decayedRate();
+            decayedAtMillis = state.decayedAtMillis();
+        }
+
+        private double decayTo(long nowMillis) {
+            long elapsedMillis = nowMillis - decayedAtMillis;
+            if (elapsedMillis <= 0) {
+                return decayedRate;
+            }
+            return decayedRate * Math.exp(-(elapsedMillis / 1000.0) / decaySeconds);
+        }
+    }
+}
@@ -1,25 +1,76 @@
 package com.predictive.inventoryservice;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
-import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
 
+// STOMP over SockJS for the dashboard. Takes the place of @EnableWebSocketMessageBroker (same configuration,
+// and other WebSocketMessageBrokerConfigurer beans still apply) so it can swap in a session handler that drops
+// frames for slow clients instead of closing them.
 @Configuration
-@EnableWebSocketMessageBroker
-public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+public class WebSocketConfig extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    @Value("${inventory.broadcast.session.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${inventory.broadcast.session.buffer-size-limit-bytes:262144}")
+    private int bufferSizeLimitBytes;
 
     @Override
-    public void configureMessageBroker(MessageBrokerRegistry config) {
+    protected void configureMessageBroker(MessageBrokerRegistry config) {
+        super.configureMessageBroker(config);
         // This is the prefix for the channels we will broadcast to (e.g., /topic/inventory)
         config.enableSimpleBroker("/topic");
         config.setApplicationDestinationPrefixes("/app");
     }
 
     @Override
-    public void registerStompEndpoints(StompEndpointRegistry registry) {
+    protected void registerStompEndpoints(StompEndpointRegistry registry) {
+        super.registerStompEndpoints(registry);
         // This opens the /ws endpoint and allows your React app (which will run on a different port) to connect safely
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        super.configureWebSocketTransport(registration);
+        // Applied by Spring to the handler below, which wraps every session with them
+        registration.setSendTimeLimit(sendTimeLimitMs);
+        registration.setSendBufferSizeLimit(bufferSizeLimitBytes);
+    }
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+                                                        AbstractSubscribableChannel clientOutboundChannel) {
+        return new DroppingSubProtocolWebSocketHandler(clientInboundChannel, clientOutboundChannel);
+    }
+
+    // Per-session backpressure: a slow client buffers frames, and once its buffer is full the OLDEST frames are
+    // dropped (they are superseded anyway) instead of the session being killed, which is what Spring's own
+    // decorator (TERMINATE) does. Clients notice the gap in frame numbers and resync over REST.
+    // Only a client whose single send blocks longer than the send time limit is closed: it is gone, not slow.
+    static class DroppingSubProtocolWebSocketHandler extends SubProtocolWebSocketHandler {
+
+        DroppingSubProtocolWebSocketHandler(MessageChannel clientInboundChannel, SubscribableChannel clientOutboundChannel) {
+            super(clientInboundChannel, clientOutboundChannel);
+        }
+
+        @Override
+        protected WebSocketSession decorateSession(WebSocketSession session) {
+            return new ConcurrentWebSocketSessionDecorator(session, getSendTimeLimit(), getSendBufferSizeLimit(),
+                    ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP);
+        }
+    }
+}
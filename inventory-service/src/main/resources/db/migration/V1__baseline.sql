@@ -0,0 +1,38 @@
+-- Schema as it stood when Hibernate ddl-auto=update still managed it.
+-- IF NOT EXISTS keeps this a no-op on databases that ddl-auto already created
+-- (spring.flyway.baseline-on-migrate marks those as V1 without running it at all).
+
+CREATE TABLE IF NOT EXISTS inventory_items (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sku         VARCHAR(255),
+    quantity    INTEGER,
+    ai_velocity FLOAT(53),
+    revision    BIGINT,
+    -- the decrement upsert relies on ON CONFLICT (sku)
+    CONSTRAINT uk_inventory_items_sku UNIQUE (sku)
+);
+
+CREATE TABLE IF NOT EXISTS sale_record (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sku            VARCHAR(255),
+    quantity_sold  INTEGER NOT NULL,
+    sale_timestamp TIMESTAMP(6)
+);
+CREATE INDEX IF NOT EXISTS idx_sale_record_sku_ts ON sale_record (sku, sale_timestamp);
+CREATE INDEX IF NOT EXISTS idx_sale_record_ts ON sale_record (sale_timestamp);
+
+CREATE TABLE IF NOT EXISTS sale_minute_rollup (
+    sku          VARCHAR(255) NOT NULL,
+    bucket_start TIMESTAMP(6) NOT NULL,
+    units_sold   BIGINT NOT NULL,
+    order_count  BIGINT NOT NULL,
+    PRIMARY KEY (sku, bucket_start)
+);
+
+CREATE TABLE IF NOT EXISTS processed_restock (
+    restock_id   VARCHAR(255) PRIMARY KEY,
+    sku          VARCHAR(255),
+    quantity     INTEGER NOT NULL,
+    processed_at TIMESTAMP(6)
+);
+CREATE INDEX IF NOT EXISTS idx_processed_restock_at ON processed_restock (processed_at);
@@ -0,0 +1,18 @@
+-- Next order-events offset per partition, written in the same transaction as the stock it produced.
+-- The consumer seeks here on assignment, so a new group id or offset reset never re-applies old orders.
+CREATE TABLE consumer_offset (
+    topic       VARCHAR(255) NOT NULL,
+    partition   INTEGER NOT NULL,
+    next_offset BIGINT NOT NULL,
+    PRIMARY KEY (topic, partition)
+);
+
+-- Compact snapshots of the in-memory per-SKU state (see InventorySnapshotService).
+-- payload is a gzipped binary encoding; only the newest few rows are kept.
+CREATE TABLE inventory_snapshot (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    taken_at   TIMESTAMP(6) NOT NULL,
+    sku_count  INTEGER NOT NULL,
+    format     INTEGER NOT NULL,
+    payload    BYTEA NOT NULL
+);
@@ -0,0 +1,37 @@
+-- Stock split by warehouse location, so concurrent writers of one SKU (order batches and restocks at different
+-- locations, velocity updates on the catalogue row) touch different rows (see StockShardStore).
+-- Orders floor each shard at zero; readers see the sums.
+CREATE TABLE inventory_stock (
+    sku      VARCHAR(255) NOT NULL,
+    location VARCHAR(64) NOT NULL,
+    quantity INTEGER NOT NULL CHECK (quantity >= 0),
+    revision BIGINT NOT NULL,
+    PRIMARY KEY (sku, location)
+);
+
+-- Existing stock becomes the single shard of the default location
+INSERT INTO inventory_stock (sku, location, quantity, revision)
+SELECT sku, 'MAIN', GREATEST(COALESCE(quantity, 0), 0), 0
+FROM inventory_items
+WHERE sku IS NOT NULL;
+
+-- inventory_items keeps the per-SKU catalogue (ai_velocity) and its own write counter
+ALTER TABLE inventory_items DROP COLUMN quantity;
+
+-- What InventoryItem maps to: totals summed on read, plus the same per location as a JSON object.
+-- revision adds up every row's write counter, so any committed write to any shard moves it forward. LATERAL keeps keyset pages (sku > ? ORDER BY sku LIMIT n) to n index lookups.
+CREATE VIEW inventory_levels AS
+SELECT i.id,
+       i.sku,
+       COALESCE(s.quantity, 0)::INTEGER AS quantity,
+       i.ai_velocity,
+       (COALESCE(i.revision, 0) + COALESCE(s.revision, 0))::BIGINT AS revision,
+       COALESCE(s.locations, '{}')::TEXT AS locations
+FROM inventory_items i
+LEFT JOIN LATERAL (
+    SELECT SUM(quantity) AS quantity,
+           SUM(revision) AS revision,
+           jsonb_object_agg(location, quantity) AS locations
+    FROM inventory_stock
+    WHERE inventory_stock.sku = i.sku
+) s ON TRUE;
@@ -0,0 +1,8 @@
+-- One row per SKU with a restock on its way to the warehouse, shared by every replica.
+-- RestockInFlightRegistry claims it before dispatching and deletes it on delivery, so N replicas scanning the
+-- same at-risk SKU send one truck, not N. A row older than the in-flight timeout can be claimed again.
+CREATE TABLE restock_in_flight (
+    sku                  VARCHAR(255) PRIMARY KEY,
+    restock_id           VARCHAR(255) NOT NULL,
+    dispatched_at_millis BIGINT NOT NULL
+);
@@ -0,0 +1,38 @@
+-- Raw sales partitioned by day, so retention drops whole days (SaleHistoryCompactor detaches and drops the
+-- partition) instead of deleting millions of rows and leaving the table to vacuum.
+-- The compactor keeps creating days ahead of time; these cover the rows already here plus the next week.
+ALTER TABLE sale_record RENAME TO sale_record_unpartitioned;
+ALTER INDEX idx_sale_record_sku_ts RENAME TO idx_sale_record_unpartitioned_sku_ts;
+ALTER INDEX idx_sale_record_ts RENAME TO idx_sale_record_unpartitioned_ts;
+
+-- The partition key has to be part of the primary key
+CREATE TABLE sale_record (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    sku            VARCHAR(255),
+    quantity_sold  INTEGER NOT NULL,
+    sale_timestamp TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id, sale_timestamp)
+) PARTITION BY RANGE (sale_timestamp);
+CREATE INDEX idx_sale_record_sku_ts ON sale_record (sku, sale_timestamp);
+CREATE INDEX idx_sale_record_ts ON sale_record (sale_timestamp);
+
+DO $$
+DECLARE
+    day DATE := LEAST((SELECT MIN(sale_timestamp)::DATE FROM sale_record_unpartitioned), CURRENT_DATE);
+BEGIN
+    WHILE day <= CURRENT_DATE + 7 LOOP
+        EXECUTE format('CREATE TABLE sale_record_p%s PARTITION OF sale_record FOR VALUES FROM (%L) TO (%L)',
+                       to_char(day, 'YYYYMMDD'), day, day + 1);
+        day := day + 1;
+    END LOOP;
+END $$;
+
+-- Undated rows (only ever written before the write-behind COPY) age out from today
+INSERT INTO sale_record (id, sku, quantity_sold, sale_timestamp)
+SELECT id, sku, quantity_sold, COALESCE(sale_timestamp, CURRENT_DATE)
+FROM sale_record_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('sale_record', 'id'),
+              COALESCE((SELECT MAX(id) FROM sale_record_unpartitioned), 0) + 1, false);
+
+DROP TABLE sale_record_unpartitioned;
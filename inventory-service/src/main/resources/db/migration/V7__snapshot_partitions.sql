@@ -0,0 +1,4 @@
+-- With several replicas each one snapshots only the order-events partitions it consumes
+-- (see InventorySnapshotService): the partitions a row covers, so a restart restores every partition it is
+-- assigned from the newest snapshot that had it, and pruning keeps the newest few per partition.
+ALTER TABLE inventory_snapshot ADD COLUMN partitions INTEGER[] NOT NULL DEFAULT '{}';
@@ -0,0 +1,76 @@
+package com.predictive.inventoryservice;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Real listeners against an embedded broker: a poison order in the middle of a batch goes to order-events-dlt
+// with its original bytes, and the good orders on either side of it are still applied.
+@EmbeddedKafka(partitions = 1, topics = {"order-events", "order-events-dlt"})
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.kafka.listener.auto-startup=true",
+        "inventory.cache.invalidation.enabled=false",
+        "forecast.engine.enabled=false",
+        "restock.enabled=false"
+})
+class DeadLetterRoutingTests extends PostgresIntegrationTest {
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void poisonOrderIsDeadLetteredAndTheRestOfTheBatchApplies() throws Exception {
+        kafkaTemplate.send("order-events", "DLT-A", new OrderEvent("DLT-A", 3));
+        kafkaTemplate.send("order-events", "DLT-A", "{not json".getBytes(StandardCharsets.UTF_8));
+        kafkaTemplate.send("order-events", "DLT-B", new OrderEvent("DLT-B", 4));
+        kafkaTemplate.flush();
+
+        Map<String, Object> props = KafkaTestUtils.consumerProps(broker, "dlt-reader", false);
+        props.put("auto.offset.reset", "earliest");
+        try (Consumer<String, byte[]> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new ByteArrayDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, "order-events-dlt");
+            ConsumerRecord<String, byte[]> deadLetter = KafkaTestUtils.getSingleRecord(consumer, "order-events-dlt", Duration.ofSeconds(30));
+            assertThat(new String(deadLetter.value(), StandardCharsets.UTF_8)).isEqualTo("{not json");
+            assertThat(deadLetter.headers().lastHeader("kafka_dlt-exception-fqcn")).isNotNull();
+        }
+
+        assertThat(awaitQuantity("DLT-A")).isEqualTo(97);
+        assertThat(awaitQuantity("DLT-B")).isEqualTo(96);
+    }
+
+    private Integer awaitQuantity(String sku) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            Integer quantity = jdbcTemplate.query("SELECT quantity FROM inventory_levels WHERE sku = ?",
+                    rs -> rs.next() ? rs.getInt(1) : null, sku);
+            if (quantity != null) {
+                return quantity;
+            }
+            Thread.sleep(100);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.predictive.inventoryservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ForecastEngineTests {
+
+    @Test
+    void fitsSteadySalesRateInUnitsPerMinute() {
+        ForecastEngine engine = new ForecastEngine(300);
+        for (int i = 0; i < 1_000; i++) {
+            engine.record("SKU-1", 2, i * 1000L);
+        }
+
+        assertThat(engine.velocityPerMinute("SKU-1")).isCloseTo(120.0, within(0.01));
+    }
+
+    @Test
+    void adaptsToANewRateInsteadOfAveragingTheWholeHistory() {
+        ForecastEngine engine = new ForecastEngine(60);
+        long t = 0;
+        for (int i = 0; i < 3_600; i++) {
+            t = i * 1000L;
+            engine.record("SKU-1", 1, t);
+        }
+        // Flash sale: 10 units/second for five minutes
+        for (int i = 1; i <= 300; i++) {
+            engine.record("SKU-1", 10, t + i * 1000L);
+        }
+
+        assertThat(engine.velocityPerMinute("SKU-1")).isCloseTo(600.0, within(30.0));
+    }
+
+    @Test
+    void publishesOnlySkusWithEnoughPointsAndOnlyOncePerUpdate() {
+        ForecastEngine engine = new ForecastEngine(300);
+        engine.record("WARM", 1, 0);
+        engine.record("WARM", 1, 1_000);
+        engine.record("WARM", 1, 2_000);
+        engine.record("COLD", 1, 0);
+
+        Map<String, Double> first = engine.drainUpdatedVelocities();
+
+        assertThat(first).containsOnlyKeys("WARM");
+        assertThat(first.get("WARM")).isCloseTo(60.0, within(0.01));
+        assertThat(engine.drainUpdatedVelocities()).isEmpty();
+    }
+}
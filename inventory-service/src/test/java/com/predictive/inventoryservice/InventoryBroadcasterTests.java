@@ -0,0 +1,92 @@
+package com.predictive.inventoryservice;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class InventoryBroadcasterTests {
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InventoryBroadcaster broadcaster = new InventoryBroadcaster(messagingTemplate, new PipelineMetrics(meterRegistry));
+
+    @Test
+    void coalescesUpdatesPerSkuIntoOneFrame() {
+        broadcaster.publish(item("A", 10, 0.0));
+        broadcaster.publish(item("A", 9, 0.0));
+        broadcaster.publish(item("A", 8, 0.0));
+        broadcaster.publish(item("B", 50, 1.5));
+
+        broadcaster.sendFrame();
+
+        InventoryBroadcaster.InventoryFrame frame = captureInventoryFrames(1).get(0);
+        assertThat(frame.frame()).isEqualTo(1);
+        assertThat(frame.items()).containsExactlyInAnyOrder(
+                new InventoryBroadcaster.InventoryDelta("A", 8, 0.0, Map.of()),
+                new InventoryBroadcaster.InventoryDelta("B", 50, 1.5, Map.of()));
+    }
+
+    @Test
+    void laterFramesCarryOnlyChangedFields() {
+        broadcaster.publish(item("A", 10, 2.0));
+        broadcaster.sendFrame();
+
+        broadcaster.publish(item("A", 7, 2.0));   // quantity changed
+        broadcaster.sendFrame();
+        broadcaster.publish(item("A", 7, 2.0));   // nothing changed -> no frame at all
+        broadcaster.sendFrame();
+
+        List<InventoryBroadcaster.InventoryFrame> frames = captureInventoryFrames(2);
+        assertThat(frames.get(1).frame()).isEqualTo(2);
+        assertThat(frames.get(1).items()).containsExactly(new InventoryBroadcaster.InventoryDelta("A", 7, null, null));
+    }
+
+    @Test
+    void framesRecordEndToEndLatencyOfTheOldestWaitingOrderPerSku() {
+        long now = System.currentTimeMillis();
+        broadcaster.publish(List.of(item("A", 9, 0.0)), Map.of("A", now - 5_000));
+        broadcaster.publish(List.of(item("A", 8, 0.0)), Map.of("A", now - 1_000));
+        broadcaster.publish(item("B", 50, 1.5)); // restock/prediction: no order behind it
+
+        broadcaster.sendFrame();
+
+        Timer endToEnd = meterRegistry.get(PipelineMetrics.END_TO_END_TIMER).timer();
+        assertThat(endToEnd.count()).isEqualTo(1);
+        assertThat(endToEnd.max(TimeUnit.MILLISECONDS)).isBetween(5_000.0, 60_000.0);
+        assertThat(meterRegistry.get(PipelineMetrics.STAGE_TIMER)
+                .tags("stage", "websocket-send", "source", InventoryBroadcaster.INVENTORY_TOPIC).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void idleFramesSendNothing() {
+        broadcaster.sendFrame();
+
+        verify(messagingTemplate, never()).convertAndSend(any(String.class), any(Object.class));
+    }
+
+    private List<InventoryBroadcaster.InventoryFrame> captureInventoryFrames(int expected) {
+        ArgumentCaptor<InventoryBroadcaster.InventoryFrame> frames = ArgumentCaptor.forClass(InventoryBroadcaster.InventoryFrame.class);
+        verify(messagingTemplate, times(expected)).convertAndSend(eq("/topic/inventory"), frames.capture());
+        return frames.getAllValues();
+    }
+
+    private static InventoryItem item(String sku, int quantity, double aiVelocity) {
+        InventoryItem item = new InventoryItem(sku, quantity);
+        item.setAiVelocity(aiVelocity);
+        return item;
+    }
+}
@@ -0,0 +1,74 @@
+package com.predictive.inventoryservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryItemCacheTests {
+
+    private InventoryRepository repository;
+    private InventoryReadModel readModel;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryItemCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(InventoryRepository.class);
+        readModel = mock(InventoryReadModel.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new InventoryItemCache(repository, readModel, kafkaTemplate, meterRegistry, 1_000, 60, true);
+    }
+
+    @Test
+    void loadsOnceThenServesFromMemory() {
+        when(repository.findBySku("SKU-1")).thenReturn(Optional.of(item("SKU-1", 40, 1)));
+
+        cache.findBySku("SKU-1");
+        cache.findBySku("SKU-1");
+
+        verify(repository, times(1)).findBySku("SKU-1");
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "inventoryItems").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void olderRowNeverOverwritesNewerOne() {
+        cache.updated(item("SKU-1", 10, 7));
+        cache.updated(item("SKU-1", 50, 6)); // a slower thread finishing late
+
+        assertThat(cache.findBySku("SKU-1")).get().extracting(InventoryItem::getQuantity).isEqualTo(10);
+    }
+
+    @Test
+    void writesNotifyOtherReplicasButIgnoreOwnEcho() {
+        cache.updated(item("SKU-1", 10, 1));
+        verify(kafkaTemplate).send(eq(InventoryItemCache.INVALIDATION_TOPIC), eq("SKU-1"), anyString());
+
+        // Another replica changed the row: our copy must go, and the read model re-reads it
+        cache.handleInvalidation("some-other-instance", "SKU-1");
+        verify(readModel).markStale("SKU-1");
+        when(repository.findBySku("SKU-1")).thenReturn(Optional.of(item("SKU-1", 3, 2)));
+
+        assertThat(cache.findBySku("SKU-1")).get().extracting(InventoryItem::getQuantity).isEqualTo(3);
+    }
+
+    private static InventoryItem item(String sku, int quantity, long revision) {
+        InventoryItem item = new InventoryItem(sku, quantity);
+        item.setRevision(revision);
+        return item;
+    }
+}
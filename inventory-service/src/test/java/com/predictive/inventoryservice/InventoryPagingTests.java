@@ -0,0 +1,127 @@
+package com.predictive.inventoryservice;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class InventoryPagingTests extends PostgresIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventoryReadModel inventoryReadModel;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM inventory_stock WHERE sku LIKE 'PG-%'");
+        jdbcTemplate.update("DELETE FROM inventory_items WHERE sku LIKE 'PG-%'");
+        for (int i = 0; i < 25; i++) {
+            String sku = String.format("PG-%03d", i);
+            jdbcTemplate.update("INSERT INTO inventory_items (sku, ai_velocity, revision) VALUES (?, ?, 1)", sku, i / 10.0);
+            jdbcTemplate.update("INSERT INTO inventory_stock (sku, location, quantity, revision) VALUES (?, 'MAIN', ?, 1)",
+                    sku, i * 4);
+        }
+        inventoryReadModel.reload(); // rows written behind the service's back
+
+    }
+
+    @Test
+    void pagesFollowTheSkuCursor() throws Exception {
+        mockMvc.perform(get("/api/inventory").param("after", "PG-").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(10))
+                .andExpect(jsonPath("$[0].sku").value("PG-000"))
+                .andExpect(header().string(InventoryApiController.NEXT_CURSOR_HEADER, "PG-009"))
+                .andExpect(header().exists(InventoryReadModel.READ_MODEL_VERSION_HEADER));
+
+        mockMvc.perform(get("/api/inventory").param("after", "PG-009").param("limit", "10"))
+                .andExpect(jsonPath("$[0].sku").value("PG-010"))
+                .andExpect(jsonPath("$[9].sku").value("PG-019"));
+    }
+
+    @Test
+    void filtersNarrowThePage() throws Exception {
+        // quantity = i * 4 <= 30  ->  PG-000 .. PG-007
+        mockMvc.perform(get("/api/inventory").param("after", "PG-").param("filter", "low-stock").param("limit", "8"))
+                .andExpect(jsonPath("$.length()").value(8))
+                .andExpect(jsonPath("$[7].sku").value("PG-007"));
+
+        // aiVelocity = i / 10 >= 2.0  ->  PG-020 .. PG-024
+        mockMvc.perform(get("/api/inventory").param("after", "PG-").param("filter", "fast_moving")
+                        .param("minVelocity", "2.0").param("limit", "5"))
+                .andExpect(jsonPath("$[0].sku").value("PG-020"))
+                .andExpect(jsonPath("$[4].sku").value("PG-024"));
+    }
+
+    @Test
+    void nonPositiveLimitStillPagesOneRowAtATime() throws Exception {
+        mockMvc.perform(get("/api/inventory").param("after", "PG-").param("limit", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(header().string(InventoryApiController.NEXT_CURSOR_HEADER, "PG-000"));
+
+        assertThat(InventoryPageService.nextCursor(List.of(), 0)).isNull();
+    }
+
+    @Test
+    void unknownFilterIsABadRequest() throws Exception {
+        mockMvc.perform(get("/api/inventory").param("filter", "cheapest"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/inventory/export").param("filter", "cheapest"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unchangedPageIsNotModifiedUntilARowIsWritten() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/inventory").param("after", "PG-").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+        assertThat(etag).isNotBlank();
+
+        mockMvc.perform(get("/api/inventory").param("after", "PG-").param("limit", "5").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        jdbcTemplate.update("UPDATE inventory_stock SET quantity = 1, revision = revision + 1 WHERE sku = 'PG-002'");
+        // Served from memory: the page only changes once the write reaches the read model
+        mockMvc.perform(get("/api/inventory").param("after", "PG-").param("limit", "5").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        inventoryReadModel.markStale("PG-002"); // what another replica's write looks like
+        inventoryReadModel.publish();
+
+        mockMvc.perform(get("/api/inventory").param("after", "PG-").param("limit", "5").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void exportStreamsEveryRowAsNdjson() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/inventory/export").param("filter", "low_stock"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        long pgLines = body.lines().filter(line -> line.contains("\"sku\":\"PG-")).count();
+        assertThat(pgLines).isEqualTo(8);
+        assertThat(body.lines()).allMatch(line -> line.startsWith("{") && line.endsWith("}"));
+    }
+}
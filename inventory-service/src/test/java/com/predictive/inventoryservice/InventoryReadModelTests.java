@@ -0,0 +1,163 @@
+package com.predictive.inventoryservice;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InventoryReadModelTests {
+
+    private InventoryRepository repository;
+    private RestockRiskIndex riskIndex;
+    private InventoryReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(InventoryRepository.class);
+        riskIndex = new RestockRiskIndex(repository);
+        readModel = new InventoryReadModel(new InventoryPageService(repository), repository, riskIndex);
+    }
+
+    @Test
+    void publishedSnapshotsNeverChangeUnderTheirReaders() {
+        readModel.update(item("B", 10, 0.5, 1));
+        readModel.publish();
+        InventoryReadModel.Snapshot first = readModel.current();
+
+        readModel.update(item("A", 4, 0.0, 1));
+        readModel.update(item("B", 2, 0.5, 2));
+        readModel.publish();
+        InventoryReadModel.Snapshot second = readModel.current();
+
+        assertThat(first.size()).isEqualTo(1);
+        assertThat(first.find("B")).get().extracting(InventoryReadModel.Row::quantity).isEqualTo(10);
+        assertThat(second.version()).isGreaterThan(first.version());
+        assertThat(second.page("", 10, InventoryPageService.Filter.ALL, 0, 0).rows())
+                .extracting(InventoryReadModel.Row::sku).containsExactly("A", "B");
+        assertThat(second.find("B")).get().extracting(InventoryReadModel.Row::quantity).isEqualTo(2);
+    }
+
+    @Test
+    void versionOnlyMovesWhenSomethingWasWritten() {
+        long initial = readModel.current().version();
+        assertThat(readModel.publish()).isEqualTo(initial);
+
+        readModel.update(item("A", 1, 0.0, 1));
+        assertThat(readModel.publish()).isEqualTo(initial + 1);
+        assertThat(readModel.current().page("", 1, InventoryPageService.Filter.ALL, 0, 0).version()).isEqualTo(initial + 1);
+    }
+
+    @Test
+    void lastPageGetsANewEtagOnceASkuAfterItAppears() {
+        readModel.update(item("A", 1, 0.0, 1));
+        readModel.update(item("B", 1, 0.0, 1));
+        readModel.publish();
+        InventoryReadModel.Page last = readModel.current().page("", 2, InventoryPageService.Filter.ALL, 0, 0);
+
+        readModel.update(item("C", 1, 0.0, 1)); // A and B untouched, but the page is no longer the last one
+        readModel.publish();
+        InventoryReadModel.Page full = readModel.current().page("", 2, InventoryPageService.Filter.ALL, 0, 0);
+
+        assertThat(last.nextCursor()).isNull();
+        assertThat(full.rows()).isEqualTo(last.rows());
+        assertThat(full.nextCursor()).isEqualTo("B");
+        assertThat(full.etag()).isNotEqualTo(last.etag());
+    }
+
+    @Test
+    void olderRowNeverOverwritesNewerOne() {
+        readModel.update(item("A", 10, 1.0, 7));
+        readModel.publish();
+        readModel.update(item("A", 50, 1.0, 6)); // a slower thread finishing late
+        readModel.publish();
+
+        assertThat(readModel.current().find("A")).get().extracting(InventoryReadModel.Row::quantity).isEqualTo(10);
+    }
+
+    @Test
+    void rowsCarryTimeToEmptyAndPagesFollowTheCursor() {
+        for (int i = 0; i < 6; i++) {
+            readModel.update(item("SKU-" + i, i * 10, i % 2 == 0 ? 2.0 : 0.0, 1));
+        }
+        readModel.publish();
+        InventoryReadModel.Snapshot snapshot = readModel.current();
+
+        assertThat(snapshot.find("SKU-4")).get().extracting(InventoryReadModel.Row::minutesToEmpty).isEqualTo(20.0);
+        assertThat(snapshot.find("SKU-3")).get().extracting(InventoryReadModel.Row::minutesToEmpty).isNull();
+
+        InventoryReadModel.Page first = snapshot.page("", 2, InventoryPageService.Filter.FAST_MOVING, 0, 1.0);
+        assertThat(first.rows()).extracting(InventoryReadModel.Row::sku).containsExactly("SKU-0", "SKU-2");
+        InventoryReadModel.Page second = snapshot.page(first.nextCursor(), 2, InventoryPageService.Filter.FAST_MOVING, 0, 1.0);
+        assertThat(second.rows()).extracting(InventoryReadModel.Row::sku).containsExactly("SKU-4");
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void publishRebuildsOnlyTheSegmentsItsRowsFallInto() {
+        int skus = 3 * InventoryReadModel.SEGMENT_SIZE;
+        for (int i = 0; i < skus; i++) {
+            readModel.update(item("SEG-%05d".formatted(i), 5, 0.0, 1));
+        }
+        readModel.publish();
+        InventoryReadModel.Snapshot first = readModel.current();
+
+        readModel.update(item("SEG-%05d".formatted(skus - 1), 9, 0.0, 2));
+        readModel.update(item("SEG-%05dA".formatted(skus - 2), 1, 0.0, 1)); // new SKU, sorts into the last segment
+        readModel.publish();
+        InventoryReadModel.Snapshot second = readModel.current();
+
+        assertThat(first.segments()).hasSize(3);
+        assertThat(second.segments().subList(0, 2)).containsExactlyElementsOf(first.segments().subList(0, 2));
+        assertThat(second.segments().get(0)).isSameAs(first.segments().get(0));
+        assertThat(second.size()).isEqualTo(skus + 1);
+        assertThat(second.find("SEG-%05d".formatted(skus - 1))).get().extracting(InventoryReadModel.Row::quantity).isEqualTo(9);
+        assertThat(first.find("SEG-%05d".formatted(skus - 1))).get().extracting(InventoryReadModel.Row::quantity).isEqualTo(5);
+
+        // Pages run across segment boundaries in SKU order
+        List<String> paged = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            InventoryReadModel.Page page = second.page(cursor, 100, InventoryPageService.Filter.ALL, 0, 0);
+            page.rows().forEach(row -> paged.add(row.sku()));
+            cursor = page.nextCursor();
+        }
+        assertThat(paged).hasSize(skus + 1).isSorted();
+    }
+
+    @Test
+    void staleSkusAreReReadOnPublish() {
+        readModel.update(item("A", 10, 0.0, 1));
+        readModel.publish();
+        when(repository.findBySkuIn(List.of("A"))).thenReturn(List.of(item("A", 3, 0.0, 2)));
+
+        readModel.markStale("A");
+        readModel.publish();
+
+        assertThat(readModel.current().find("A")).get().extracting(InventoryReadModel.Row::quantity).isEqualTo(3);
+    }
+
+    @Test
+    void skuRestockedByAnotherReplicaLeavesTheRiskIndex() {
+        riskIndex.update(item("LOW", 2, 1.0, 1)); // 2 min to empty
+        when(repository.findBySkuIn(List.of("LOW"))).thenReturn(List.of(item("LOW", 502, 1.0, 2)));
+
+        readModel.markStale("LOW"); // the other replica's invalidation after its restock
+        readModel.publish();
+
+        assertThat(riskIndex.atRisk(10, 30, 10)).isEmpty();
+    }
+
+    private static InventoryItem item(String sku, int quantity, double aiVelocity, long revision) {
+        InventoryItem item = new InventoryItem(sku, quantity);
+        item.setAiVelocity(aiVelocity);
+        item.setRevision(revision);
+        item.setLocations(Map.of("MAIN", quantity));
+        return item;
+    }
+}
@@ -0,0 +1,177 @@
+package com.predictive.inventoryservice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+// Warm restart: offsets commit with the stock, and a snapshot brings a fresh set of in-memory components
+// back to where the old ones were (plus restocks that landed after it)
+class InventorySnapshotTests extends PostgresIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private InventoryBatchService inventoryBatchService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderOffsetStore orderOffsetStore;
+
+    @Autowired
+    private StockShardStore stockShardStore;
+
+    @Autowired
+    private ApplicationContext context;
+
+    // Other test classes share this database and consume order-events for real
+    @AfterEach
+    void forgetOffsetsAndSnapshots() {
+        jdbcTemplate.update("DELETE FROM consumer_offset");
+        jdbcTemplate.update("DELETE FROM inventory_snapshot");
+    }
+
+    @Test
+    void orderOffsetsCommitWithTheStockAndOnlyMoveForward() {
+        inventoryBatchService.applyOrders(Map.of("SNAP-OFFSET", 2), Map.of(0, 42L));
+        inventoryBatchService.applyOrders(Map.of("SNAP-OFFSET", 3), Map.of(0, 10L, 1, 7L));
+
+        assertThat(orderOffsetStore.load(InventoryListener.ORDER_EVENTS_TOPIC)).containsExactlyInAnyOrderEntriesOf(Map.of(0, 42L, 1, 7L));
+        assertThat(inventoryRepository.findBySku("SNAP-OFFSET").orElseThrow().getQuantity()).isEqualTo(95);
+    }
+
+    @Test
+    void pollThatFailsAfterItsCommitIsOnlyReplayedOnRedelivery() {
+        RecentSalesFeed failingFeed = mock(RecentSalesFeed.class);
+        doThrow(new IllegalStateException("feed down")).when(failingFeed).append(anyList());
+        InventoryListener listener = listenerWith(failingFeed);
+        List<ConsumerRecord<String, OrderEvent>> poll = List.of(
+                new ConsumerRecord<>(InventoryListener.ORDER_EVENTS_TOPIC, 0, 10L, "SNAP-REDELIVER", new OrderEvent("SNAP-REDELIVER", 2)),
+                new ConsumerRecord<>(InventoryListener.ORDER_EVENTS_TOPIC, 0, 11L, "SNAP-REDELIVER", new OrderEvent("SNAP-REDELIVER", 1)));
+
+        assertThatThrownBy(() -> listener.handleOrderEvents(poll)).hasMessage("feed down");
+        listener.handleOrderEvents(poll); // what the error handler does next
+
+        assertThat(inventoryRepository.findBySku("SNAP-REDELIVER").orElseThrow().getQuantity()).isEqualTo(97);
+        assertThat(orderOffsetStore.load(InventoryListener.ORDER_EVENTS_TOPIC)).containsEntry(0, 12L);
+        assertThat(context.getBean(VelocityEngine.class).totalUnitsSold("SNAP-REDELIVER")).isEqualTo(3); // not 6
+    }
+
+    @Test
+    void freshComponentsRestoreFromTheLatestSnapshot() {
+        inventoryBatchService.applyOrders(Map.of("SNAP-A", 93), Map.of(0, 500L));
+        inventoryRepository.updateAiVelocity("SNAP-A", 1.5);
+        // Stand-alone engines: the context's ForecastEngine would try to publish what we record
+        VelocityEngine velocityEngine = new VelocityEngine(60);
+        ForecastEngine forecastEngine = new ForecastEngine(300);
+        InventorySnapshotService running = snapshotService(new RestockRiskIndex(inventoryRepository), velocityEngine, forecastEngine);
+        long start = System.currentTimeMillis();
+        running.recordEngines(Map.of(0, 500L), Map.of("SNAP-A", 0), () -> {
+            for (int i = 0; i < 5; i++) {
+                velocityEngine.record("SNAP-A", 2, start + i * 1000L);
+                forecastEngine.record("SNAP-A", 2, start + i * 1000L);
+            }
+        });
+        running.recordEngines(Map.of(1, 20L), Map.of(), () -> { }); // the database is further ahead on partition 1...
+
+        assertThat(running.takeSnapshot()).isGreaterThanOrEqualTo(1);
+        stockShardStore.applyRestock("snap-restock-1", new StockShardStore.Shard("SNAP-A", "MAIN"), 50); // after the snapshot
+
+        VelocityEngine restoredVelocity = new VelocityEngine(60);
+        ForecastEngine restoredForecast = new ForecastEngine(300);
+        RestockRiskIndex restoredIndex = new RestockRiskIndex(inventoryRepository);
+        InventorySnapshotService restarted = snapshotService(restoredIndex, restoredVelocity, restoredForecast);
+
+        assertThat(restarted.restoreLatest()).isTrue();
+        assertThat(restoredVelocity.totalUnitsSold("SNAP-A")).isZero(); // not until partition 0 is assigned
+        assertThat(restarted.restorePartition(0, 500L)).isEqualTo(500L);
+        assertThat(restarted.restorePartition(1, 30L)).isEqualTo(20L); // ...but replay starts where the engines stopped
+        assertThat(restarted.restorePartition(0, 500L)).isNull(); // a rebalance does not restore it twice
+        assertThat(restarted.engineOffset(1)).isEqualTo(20L);
+        assertThat(restoredVelocity.totalUnitsSold("SNAP-A")).isEqualTo(10);
+        assertThat(restoredVelocity.lifetimeVelocityPerSecond("SNAP-A")).isEqualTo(velocityEngine.lifetimeVelocityPerSecond("SNAP-A"));
+        assertThat(restoredForecast.velocityPerMinute("SNAP-A")).isCloseTo(forecastEngine.velocityPerMinute("SNAP-A"), within(1e-9));
+        assertThat(restoredIndex.topAtRisk(restoredIndex.size()))
+                .filteredOn(entry -> entry.sku().equals("SNAP-A"))
+                .singleElement()
+                .satisfies(entry -> {
+                    assertThat(entry.quantity()).isEqualTo(57); // 7 in the snapshot + the later restock
+                    assertThat(entry.aiVelocity()).isEqualTo(1.5);
+                });
+    }
+
+    @Test
+    void withoutSnapshotsTheBootIsCold() {
+        InventorySnapshotService restarted = snapshotService(new RestockRiskIndex(inventoryRepository),
+                new VelocityEngine(60), new ForecastEngine(300));
+
+        assertThat(restarted.restoreLatest()).isFalse();
+        assertThat(restarted.restorePartition(0, 100L)).isNull();
+    }
+
+    @Test
+    void eachPartitionIsRestoredFromTheNewestSnapshotThatCoveredIt() {
+        inventoryBatchService.applyOrders(Map.of("SNAP-P0", 1, "SNAP-P1", 1), Map.of(0, 300L, 1, 400L));
+        long start = System.currentTimeMillis();
+
+        // Two replicas, one partition each; the one on partition 1 snapshots last
+        VelocityEngine velocity0 = new VelocityEngine(60);
+        InventorySnapshotService replica0 = snapshotService(new RestockRiskIndex(inventoryRepository), velocity0, new ForecastEngine(300));
+        replica0.recordEngines(Map.of(0, 300L), Map.of("SNAP-P0", 0), () -> velocity0.record("SNAP-P0", 4, start));
+        VelocityEngine velocity1 = new VelocityEngine(60);
+        InventorySnapshotService replica1 = snapshotService(new RestockRiskIndex(inventoryRepository), velocity1, new ForecastEngine(300));
+        replica1.recordEngines(Map.of(1, 400L), Map.of("SNAP-P1", 1), () -> velocity1.record("SNAP-P1", 6, start));
+        replica0.takeSnapshot();
+        replica1.takeSnapshot();
+
+        VelocityEngine restoredVelocity = new VelocityEngine(60);
+        InventorySnapshotService restarted = snapshotService(new RestockRiskIndex(inventoryRepository), restoredVelocity, new ForecastEngine(300));
+        assertThat(restarted.restoreLatest()).isTrue();
+        assertThat(restarted.restorePartition(0, 300L)).isEqualTo(300L); // from replica 0's, not the newest
+        assertThat(restoredVelocity.totalUnitsSold("SNAP-P0")).isEqualTo(4);
+        assertThat(restoredVelocity.totalUnitsSold("SNAP-P1")).isZero(); // partition 1 is some other replica's
+
+        // A revoked partition is left to the replica that has it now
+        replica1.partitionsRevoked(List.of(1));
+        replica1.takeSnapshot();
+        InventorySnapshotService again = snapshotService(new RestockRiskIndex(inventoryRepository), new VelocityEngine(60), new ForecastEngine(300));
+        assertThat(again.restoreLatest()).isTrue();
+        assertThat(again.restorePartition(1, 400L)).isEqualTo(400L); // still replica 1's earlier snapshot
+        assertThat(again.restorePartition(0, 300L)).isEqualTo(300L);
+    }
+
+    // The context's listener, except for one collaborator
+    private InventoryListener listenerWith(RecentSalesFeed recentSalesFeed) {
+        return new InventoryListener(context.getBean(InventoryBatchService.class), context.getBean(SaleHistoryWriter.class),
+                context.getBean(SalesRollupWriter.class), context.getBean(InventoryItemCache.class), recentSalesFeed,
+                context.getBean(RestockRiskIndex.class), context.getBean(InventoryReadModel.class),
+                context.getBean(InventoryBroadcaster.class), context.getBean(StockLevelPublisher.class),
+                context.getBean(VelocityEngine.class), context.getBean(ForecastEngine.class),
+                orderOffsetStore, context.getBean(InventorySnapshotService.class),
+                context.getBean(PipelineMetrics.class), context.getBean(MeterRegistry.class));
+    }
+
+    private InventorySnapshotService snapshotService(RestockRiskIndex index, VelocityEngine velocity, ForecastEngine forecast) {
+        return new InventorySnapshotService(jdbcTemplate, transactionManager, index, velocity, forecast, true, 3, 168);
+    }
+}
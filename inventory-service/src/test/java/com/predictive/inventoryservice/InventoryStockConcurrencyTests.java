@@ -0,0 +1,118 @@
+package com.predictive.inventoryservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Hammers the stock write paths from many threads against a real (embedded) Postgres
+// and checks that no decrement or restock is ever lost.
+class InventoryStockConcurrencyTests extends PostgresIntegrationTest {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private InventoryBatchService inventoryBatchService;
+
+    @Autowired
+    private StockShardStore stockShardStore;
+
+    @Test
+    void concurrentDecrementsAndRestocksLoseNothing() throws Exception {
+        StockShardStore.Shard restockShard = new StockShardStore.Shard("STRESS-1", "MAIN");
+        stockShardStore.register(restockShard, 100_000);
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            tasks.add(() -> {
+                for (int i = 0; i < 200; i++) {
+                    inventoryBatchService.applyOrders(Map.of("STRESS-1", 1));
+                }
+                return null;
+            });
+        }
+        for (int t = 0; t < 4; t++) {
+            tasks.add(() -> {
+                for (int i = 0; i < 100; i++) {
+                    stockShardStore.add(restockShard, 5);
+                }
+                return null;
+            });
+        }
+        runAll(tasks);
+
+        assertThat(inventoryRepository.findBySku("STRESS-1").orElseThrow().getQuantity())
+                .isEqualTo(100_000 - 16 * 200 + 4 * 100 * 5);
+    }
+
+    @Test
+    void firstOrdersForUnknownSkuCreateExactlyOneRow() throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            tasks.add(() -> {
+                inventoryBatchService.applyOrders(Map.of("STRESS-NEW", 2));
+                return null;
+            });
+        }
+        runAll(tasks);
+
+        assertThat(inventoryRepository.findBySkuIn(List.of("STRESS-NEW")))
+                .singleElement()
+                .extracting(InventoryItem::getQuantity)
+                .isEqualTo(100 - 16 * 2);
+    }
+
+    @Test
+    void totalClampsAtZeroAndBatchReturnsNewQuantity() {
+        stockShardStore.register(new StockShardStore.Shard("STRESS-CLAMP", "MAIN"), 5);
+
+        assertThat(inventoryBatchService.applyOrders(Map.of("STRESS-CLAMP", 3)))
+                .singleElement().extracting(InventoryItem::getQuantity).isEqualTo(2);
+        assertThat(inventoryBatchService.applyOrders(Map.of("STRESS-CLAMP", 3)))
+                .singleElement().extracting(InventoryItem::getQuantity).isEqualTo(0);
+    }
+
+    @Test
+    void overlappingBatchesFromParallelConsumersNeitherDeadlockNorLoseUpdates() throws Exception {
+        for (String sku : List.of("STRESS-A", "STRESS-B", "STRESS-C")) {
+            stockShardStore.register(new StockShardStore.Shard(sku, "MAIN"), 50_000);
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tasks.add(() -> {
+                for (int i = 0; i < 50; i++) {
+                    Map<String, Integer> batch = new TreeMap<>(Map.of("STRESS-A", 1, "STRESS-B", 2, "STRESS-C", 3));
+                    inventoryBatchService.applyOrders(batch);
+                }
+                return null;
+            });
+        }
+        runAll(tasks);
+
+        assertThat(inventoryRepository.findBySku("STRESS-A").orElseThrow().getQuantity()).isEqualTo(50_000 - 8 * 50);
+        assertThat(inventoryRepository.findBySku("STRESS-B").orElseThrow().getQuantity()).isEqualTo(50_000 - 8 * 50 * 2);
+        assertThat(inventoryRepository.findBySku("STRESS-C").orElseThrow().getQuantity()).isEqualTo(50_000 - 8 * 50 * 3);
+    }
+
+    private static void runAll(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
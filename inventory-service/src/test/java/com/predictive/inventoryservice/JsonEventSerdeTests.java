@@ -0,0 +1,67 @@
+package com.predictive.inventoryservice;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonEventSerdeTests {
+
+    private final KafkaConfig kafkaConfig = new KafkaConfig();
+
+    @Test
+    void decodesEachTopicIntoItsEventType() {
+        Deserializer<Object> deserializer = configured(kafkaConfig.valueDeserializer());
+
+        Object order = deserializer.deserialize("order-events", new RecordHeaders(),
+                bytes("{\"sku\":\"SKU-1\",\"quantity\":2,\"addedLater\":true}"));
+        Object prediction = deserializer.deserialize("smart-ai-predictions", new RecordHeaders(),
+                bytes("{\"sku\":\"SKU-1\",\"ai_velocity\":4.5}"));
+        Object invalidation = deserializer.deserialize("inventory-cache-invalidation", new RecordHeaders(), bytes("instance-7"));
+
+        assertThat(order).isInstanceOf(OrderEvent.class);
+        assertThat(((OrderEvent) order).getQuantity()).isEqualTo(2);
+        assertThat(((AIPredictionEvent) prediction).getAi_velocity()).isEqualTo(4.5);
+        assertThat(invalidation).isEqualTo("instance-7");
+    }
+
+    @Test
+    void brokenOrInvalidEventsBecomeNullWithAnExceptionHeader() {
+        Deserializer<Object> deserializer = configured(kafkaConfig.valueDeserializer());
+
+        RecordHeaders broken = new RecordHeaders();
+        RecordHeaders noSku = new RecordHeaders();
+        assertThat(deserializer.deserialize("order-events", broken, bytes("{\"sku\":"))).isNull();
+        assertThat(deserializer.deserialize("order-events", noSku, bytes("{\"quantity\":2}"))).isNull();
+
+        assertThat(broken.lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER)).isNotNull();
+        assertThat(noSku.lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER)).isNotNull();
+    }
+
+    @Test
+    void serializerPicksTheEncoderByValueType() {
+        Serializer<Object> serializer = kafkaConfig.valueSerializer();
+
+        assertThat(new String(serializer.serialize("warehouse-restock", new RecordHeaders(), new RestockEvent("SKU-9", 100)), StandardCharsets.UTF_8))
+                .isEqualTo("{\"sku\":\"SKU-9\",\"quantity\":100}");
+        assertThat(new String(serializer.serialize("warehouse-restock", new RecordHeaders(), new RestockEvent("r-1", "SKU-9", 100)), StandardCharsets.UTF_8))
+                .isEqualTo("{\"restockId\":\"r-1\",\"sku\":\"SKU-9\",\"quantity\":100}");
+        assertThat(serializer.serialize("inventory-cache-invalidation", new RecordHeaders(), "instance-7"))
+                .isEqualTo(bytes("instance-7"));
+    }
+
+    private static Deserializer<Object> configured(Deserializer<Object> deserializer) {
+        deserializer.configure(Map.of(), false);
+        return deserializer;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
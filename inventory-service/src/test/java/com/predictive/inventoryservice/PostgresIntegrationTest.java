@@ -0,0 +1,44 @@
+package com.predictive.inventoryservice;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+
+// Boots the full service against one embedded Postgres shared by every subclass
+// (same Spring context, so the database and schema are created once per test run).
+// There is no broker here, so nothing may wait on Kafka: listeners stay stopped and the near-cache
+// does not publish cross-replica invalidations or stock levels. Periodic snapshots are off so tests control that table.
+@SpringBootTest(properties = {"spring.kafka.listener.auto-startup=false", "inventory.cache.invalidation.enabled=false",
+        "inventory.snapshot.enabled=false", "inventory.stock-topic.enabled=false"})
+@AutoConfigureMockMvc
+abstract class PostgresIntegrationTest {
+
+    private static final EmbeddedPostgres POSTGRES = startPostgres();
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // the JVM is going away anyway
+                }
+            }));
+            return postgres;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start embedded Postgres", e);
+        }
+    }
+}
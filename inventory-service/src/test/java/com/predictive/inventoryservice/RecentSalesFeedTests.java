@@ -0,0 +1,87 @@
+package com.predictive.inventoryservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecentSalesFeedTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Test
+    void keepsOnlyTheNewestSalesNewestFirst() {
+        SaleRecordRepository repository = mock(SaleRecordRepository.class);
+        when(repository.findBySaleTimestampBeforeOrderByIdDesc(any(), any())).thenReturn(List.of());
+        RecentSalesFeed feed = new RecentSalesFeed(repository, 3);
+
+        feed.append(List.of(sale("A"), sale("B")));
+        feed.append(List.of(sale("C"), sale("D")));
+
+        assertThat(feed.recentSales()).extracting(SaleRecord::getSku).containsExactly("D", "C", "B");
+    }
+
+    @Test
+    void backfillPutsOlderHistoryBehindLiveSalesAndRunsOnlyOnce() {
+        SaleRecordRepository repository = mock(SaleRecordRepository.class);
+        when(repository.findBySaleTimestampBeforeOrderByIdDesc(any(), any()))
+                .thenReturn(List.of(sale("OLD-2"), sale("OLD-1")));
+        RecentSalesFeed feed = new RecentSalesFeed(repository, 3);
+
+        feed.append(List.of(sale("LIVE-1"), sale("LIVE-2")));
+
+        assertThat(feed.recentSales()).extracting(SaleRecord::getSku).containsExactly("LIVE-2", "LIVE-1", "OLD-2");
+        feed.recentSales();
+        verify(repository, times(1)).findBySaleTimestampBeforeOrderByIdDesc(any(), any(Limit.class));
+    }
+
+    @Test
+    void concurrentColdStartRequestsShareOneDatabaseQuery() throws Exception {
+        SaleRecordRepository repository = mock(SaleRecordRepository.class);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findBySaleTimestampBeforeOrderByIdDesc(any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return List.of(sale("OLD"));
+        });
+        RecentSalesFeed feed = new RecentSalesFeed(repository, 10);
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        try {
+            List<Callable<List<SaleRecord>>> readers = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                readers.add(feed::recentSales);
+            }
+            List<Future<List<SaleRecord>>> results = new ArrayList<>();
+            for (Callable<List<SaleRecord>> reader : readers) {
+                results.add(pool.submit(reader));
+            }
+            Thread.sleep(200); // let every reader pile up behind the first one
+            release.countDown();
+
+            for (Future<List<SaleRecord>> result : results) {
+                assertThat(result.get()).extracting(SaleRecord::getSku).containsExactly("OLD");
+            }
+        } finally {
+            pool.shutdown();
+        }
+        verify(repository, times(1)).findBySaleTimestampBeforeOrderByIdDesc(any(), any(Limit.class));
+    }
+
+    private static SaleRecord sale(String sku) {
+        return new SaleRecord(sku, 1, NOW);
+    }
+}
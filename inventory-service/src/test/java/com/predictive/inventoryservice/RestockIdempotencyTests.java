@@ -0,0 +1,71 @@
+package com.predictive.inventoryservice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Kafka delivers at least once; the restock must still land exactly once per restockId
+class RestockIdempotencyTests extends PostgresIntegrationTest {
+
+    @Autowired
+    private RestockListener restockListener;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private StockShardStore stockShardStore;
+
+    @Autowired
+    private RestockInFlightRegistry inFlightRegistry;
+
+    @Autowired
+    private RestockClaimStore restockClaimStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void redeliveredRestockIsAppliedOnce() {
+        stockShardStore.register(new StockShardStore.Shard("RESTOCK-ONCE", "MAIN"), 5);
+        double duplicatesBefore = meterRegistry.counter("restock.duplicates").count();
+        inFlightRegistry.tryClaim("RESTOCK-ONCE", "restock-1", System.currentTimeMillis());
+
+        RestockEvent restock = new RestockEvent("restock-1", "RESTOCK-ONCE", 100);
+        restockListener.handleRestock(restock, System.currentTimeMillis());
+        restockListener.handleRestock(restock, System.currentTimeMillis());
+        restockListener.handleRestock(new RestockEvent("restock-2", "RESTOCK-ONCE", 50), System.currentTimeMillis());
+
+        assertThat(inventoryRepository.findBySku("RESTOCK-ONCE").orElseThrow().getQuantity()).isEqualTo(155);
+        assertThat(meterRegistry.counter("restock.duplicates").count() - duplicatesBefore).isEqualTo(1);
+        assertThat(inFlightRegistry.isInFlight("RESTOCK-ONCE")).isFalse();
+    }
+
+    @Test
+    void replicasShareOneRestockSlotPerSku() {
+        RestockInFlightRegistry replicaA = new RestockInFlightRegistry(restockClaimStore, new SimpleMeterRegistry(), 300_000);
+        RestockInFlightRegistry replicaB = new RestockInFlightRegistry(restockClaimStore, new SimpleMeterRegistry(), 300_000);
+        long now = System.currentTimeMillis();
+
+        assertThat(replicaA.tryClaim("RESTOCK-SHARED", "truck-a", now)).isTrue();
+        assertThat(replicaB.tryClaim("RESTOCK-SHARED", "truck-b", now)).isFalse();
+        assertThat(replicaB.isInFlight("RESTOCK-SHARED")).isFalse();
+
+        replicaB.release("RESTOCK-SHARED", "truck-a"); // delivered, consumed by B
+        assertThat(replicaB.tryClaim("RESTOCK-SHARED", "truck-b", now + 1)).isTrue();
+        // B's truck never arrives: after the timeout A may dispatch again
+        assertThat(replicaA.tryClaim("RESTOCK-SHARED", "truck-a2", now + 300_001)).isTrue();
+    }
+
+    @Test
+    void legacyRestocksWithoutIdStillApply() {
+        stockShardStore.register(new StockShardStore.Shard("RESTOCK-LEGACY", "MAIN"), 0);
+
+        restockListener.handleRestock(new RestockEvent("RESTOCK-LEGACY", 30), System.currentTimeMillis());
+
+        assertThat(inventoryRepository.findBySku("RESTOCK-LEGACY").orElseThrow().getQuantity()).isEqualTo(30);
+    }
+}
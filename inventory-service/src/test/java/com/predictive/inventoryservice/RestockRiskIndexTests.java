@@ -0,0 +1,133 @@
+package com.predictive.inventoryservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RestockRiskIndexTests {
+
+    private RestockRiskIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new RestockRiskIndex(mock(InventoryRepository.class));
+    }
+
+    @Test
+    void ordersSkusByMinutesToEmpty() {
+        index.update("SLOW", 100, 1.0);  // 100 min
+        index.update("FAST", 20, 10.0);  // 2 min
+        index.update("MID", 30, 3.0);    // 10 min
+        index.update("IDLE", 5, 0.0);    // not selling
+
+        assertThat(index.topAtRisk(10)).extracting(RestockRiskIndex.RiskEntry::sku)
+                .containsExactly("FAST", "MID", "SLOW");
+        assertThat(index.topAtRisk(1)).extracting(RestockRiskIndex.RiskEntry::sku).containsExactly("FAST");
+    }
+
+    @Test
+    void updatesMoveAnExistingSku() {
+        index.update("A", 10, 1.0);  // 10 min
+        index.update("B", 50, 10.0); // 5 min
+        assertThat(index.topAtRisk(1).get(0).sku()).isEqualTo("B");
+
+        index.update("B", 150, 10.0); // restocked: 15 min
+        assertThat(index.topAtRisk(2)).extracting(RestockRiskIndex.RiskEntry::sku).containsExactly("A", "B");
+        assertThat(index.size()).isEqualTo(2);
+
+        index.remove("A");
+        assertThat(index.topAtRisk(2)).extracting(RestockRiskIndex.RiskEntry::sku).containsExactly("B");
+    }
+
+    @Test
+    void atRiskAppliesBothThresholds() {
+        index.update("LOW-AND-FAST", 20, 5.0);  // 4 min, 20 units
+        index.update("HIGH-AND-FAST", 80, 20.0); // 4 min, but 80 units
+        index.update("LOW-AND-SLOW", 20, 1.0);  // 20 min
+        index.update("EMPTY", 0, 2.0);          // already out
+
+        assertThat(index.atRisk(10, 30, 100)).extracting(RestockRiskIndex.RiskEntry::sku)
+                .containsExactly("EMPTY", "LOW-AND-FAST");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void schedulerKeepsOneRestockInFlightPerSkuUntilDelivered() {
+        KafkaTemplate<String, RestockEvent> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any(RestockEvent.class))).thenReturn(new CompletableFuture<>());
+        RestockInFlightRegistry registry = new RestockInFlightRegistry(freeClaims(), new SimpleMeterRegistry(), 300_000);
+        RestockScheduler scheduler = new RestockScheduler(index, registry, kafkaTemplate, 10, 30, 60, 20, 5000, 100);
+        index.update("SKU-1", 10, 5.0);  // 2 min
+        index.update("SKU-2", 500, 5.0); // plenty
+
+        List<String> first = scheduler.scan(1_000);
+        List<String> whileInFlight = scheduler.scan(60_000);
+
+        ArgumentCaptor<RestockEvent> sent = ArgumentCaptor.forClass(RestockEvent.class);
+        verify(kafkaTemplate).send(eq("warehouse-restock"), eq("SKU-1"), sent.capture());
+        registry.release("SKU-1", sent.getValue().getRestockId()); // delivered
+        List<String> afterDelivery = scheduler.scan(61_000);
+
+        assertThat(first).containsExactly("SKU-1");
+        assertThat(whileInFlight).isEmpty();
+        assertThat(afterDelivery).containsExactly("SKU-1");
+        assertThat(sent.getValue().getRestockId()).isNotBlank();
+        assertThat(sent.getValue().getQuantity()).isEqualTo(5 * 60 - 10); // an hour of cover at 5/min
+        verify(kafkaTemplate, never()).send(eq("warehouse-restock"), eq("SKU-2"), any(RestockEvent.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void lostRestocksFreeTheSkuAfterTheTimeout() {
+        KafkaTemplate<String, RestockEvent> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any(RestockEvent.class))).thenReturn(new CompletableFuture<>());
+        RestockInFlightRegistry registry = new RestockInFlightRegistry(freeClaims(), new SimpleMeterRegistry(), 300_000);
+        RestockScheduler scheduler = new RestockScheduler(index, registry, kafkaTemplate, 10, 30, 60, 20, 5000, 100);
+        index.update("SKU-1", 10, 0.2); // 50 min at 0.2/min would be too slow to be at risk...
+        index.update("SKU-1", 1, 0.2);  // ...but 1 left is 5 min
+
+        assertThat(scheduler.scan(1_000)).containsExactly("SKU-1");
+        assertThat(scheduler.scan(200_000)).isEmpty();
+        assertThat(scheduler.scan(301_000)).containsExactly("SKU-1");
+        assertThat(scheduler.orderQuantity(index.topAtRisk(1).get(0))).isEqualTo(20); // 12 - 1, raised to min-order
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void inFlightSkusAtTheHeadDoNotStarveTheOnesRankedBelow() {
+        KafkaTemplate<String, RestockEvent> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(anyString(), anyString(), any(RestockEvent.class))).thenReturn(new CompletableFuture<>());
+        RestockInFlightRegistry registry = new RestockInFlightRegistry(freeClaims(), new SimpleMeterRegistry(), 300_000);
+        RestockScheduler scheduler = new RestockScheduler(index, registry, kafkaTemplate, 10, 30, 60, 20, 5000, 2);
+        for (int i = 1; i <= 5; i++) {
+            index.update("SKU-" + i, i, 1.0); // i minutes to empty
+        }
+
+        assertThat(scheduler.scan(1_000)).containsExactly("SKU-1", "SKU-2");
+        assertThat(scheduler.scan(2_000)).containsExactly("SKU-3", "SKU-4"); // past the two still in flight
+        assertThat(scheduler.scan(3_000)).containsExactly("SKU-5");
+        assertThat(scheduler.scan(4_000)).isEmpty();
+    }
+
+    // Postgres as seen by a single replica: every claim the local registry lets through is free
+    private static RestockClaimStore freeClaims() {
+        RestockClaimStore claims = mock(RestockClaimStore.class);
+        when(claims.claim(anyString(), anyString(), anyLong(), anyLong())).thenReturn(true);
+        return claims;
+    }
+}
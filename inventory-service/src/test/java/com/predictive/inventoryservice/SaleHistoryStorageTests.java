@@ -0,0 +1,161 @@
+package com.predictive.inventoryservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class SaleHistoryStorageTests extends PostgresIntegrationTest {
+
+    @Autowired
+    private SaleHistoryWriter saleHistoryWriter;
+
+    @Autowired
+    private SaleHistoryCompactor saleHistoryCompactor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void writeBehindBufferCopiesEverySale() throws InterruptedException {
+        List<SaleRecord> sales = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 12_000; i++) {
+            sales.add(new SaleRecord("WB-" + (i % 7), 1 + i % 3, now));
+        }
+
+        saleHistoryWriter.append(sales);
+        saleHistoryWriter.flush();
+
+        assertThat(awaitCount("SELECT COUNT(*) FROM sale_record WHERE sku LIKE 'WB-%'", 12_000)).isEqualTo(12_000);
+    }
+
+    @Test
+    void quotesAndCommasInSkusSurviveCopy() throws InterruptedException {
+        saleHistoryWriter.append(List.of(new SaleRecord("ODD,\"SKU\"", 4, LocalDateTime.now())));
+        saleHistoryWriter.flush();
+
+        assertThat(awaitCount("SELECT COUNT(*) FROM sale_record WHERE sku = 'ODD,\"SKU\"'", 1)).isEqualTo(1);
+    }
+
+    @Test
+    void failedCopyIsRequeuedAndOnlyWhatNoLongerFitsIsDropped() {
+        JdbcTemplate failingOnce = mock(JdbcTemplate.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SaleHistoryWriter writer = new SaleHistoryWriter(failingOnce, new OrderOffsetStore(failingOnce),
+                mock(PlatformTransactionManager.class), new PipelineMetrics(meterRegistry), meterRegistry, 10, 8);
+        doAnswer(invocation -> {
+            writer.append(sales("REQ-LATE", 5)); // the consumer keeps going while Postgres is down
+            throw new DataAccessResourceFailureException("connection refused");
+        }).doReturn(8L).when(failingOnce).execute(any(ConnectionCallback.class));
+
+        writer.append(sales("REQ", 8));
+        assertThat(writer.flush()).isFalse();
+
+        assertThat(writer.pendingCount()).isEqualTo(10);
+        assertThat(meterRegistry.counter("sales.history.requeued").count()).isEqualTo(5);
+        assertThat(meterRegistry.counter("sales.history.dropped").count()).isEqualTo(3);
+
+        assertThat(writer.flush()).isTrue();
+        assertThat(writer.pendingCount()).isZero();
+    }
+
+    @Test
+    void compactionDropsOldRawSalesAndLeavesRollupsAlone() {
+        LocalDateTime old = LocalDateTime.of(2020, 3, 1, 10, 15);
+        saleHistoryCompactor.createPartitions(old.toLocalDate(), old.toLocalDate().plusDays(1));
+        insertRaw("COMPACT-1", 2, old.plusSeconds(5));
+        insertRaw("COMPACT-1", 3, old.plusSeconds(40));
+        insertRaw("COMPACT-1", 1, old.plusMinutes(1));
+        insertRaw("COMPACT-2", 7, old.plusSeconds(10));
+        insertRaw("COMPACT-1", 9, LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO sale_minute_rollup (sku, bucket_start, units_sold, order_count) VALUES ('COMPACT-1', ?, 5, 2)",
+                Timestamp.valueOf(old));
+
+        assertThat(saleHistoryCompactor.compactOlderThan(LocalDateTime.now().minusDays(1))).isGreaterThanOrEqualTo(2);
+
+        // The rollups were maintained when the orders were consumed; compaction must not add to them
+        List<Map<String, Object>> rollups = jdbcTemplate.queryForList(
+                "SELECT sku, units_sold, order_count FROM sale_minute_rollup WHERE sku LIKE 'COMPACT-%'");
+        assertThat(rollups).singleElement().satisfies(rollup ->
+                assertThat(rollup).containsEntry("units_sold", 5L).containsEntry("order_count", 2L));
+
+        // Only the recent raw row is left
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM sale_record WHERE sku LIKE 'COMPACT-%'", Long.class)).isEqualTo(1L);
+    }
+
+    @Test
+    void compactionDropsOnlyWholeDaysAndPartitionsAreCreatedAhead() {
+        LocalDate today = LocalDate.now();
+        assertThat(partitions()).contains("sale_record_p" + today.plusDays(7).format(DateTimeFormatter.BASIC_ISO_DATE));
+
+        LocalDate day = LocalDate.of(2021, 6, 10);
+        saleHistoryCompactor.createPartitions(day, day);
+        insertRaw("WHOLE-DAY", 1, day.atTime(23, 59));
+
+        // The cutoff falls inside the day, so the day stays
+        assertThat(saleHistoryCompactor.compactOlderThan(day.atTime(12, 0))).isZero();
+        assertThat(partitions()).contains("sale_record_p20210610");
+
+        assertThat(saleHistoryCompactor.compactOlderThan(day.plusDays(1).atStartOfDay())).isEqualTo(1);
+        assertThat(partitions()).doesNotContain("sale_record_p20210610");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM sale_record WHERE sku = 'WHOLE-DAY'", Long.class)).isZero();
+    }
+
+    @Test
+    void historyIndexesExist() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE tablename = 'sale_record'", String.class);
+
+        assertThat(indexes).contains("idx_sale_record_sku_ts", "idx_sale_record_ts");
+    }
+
+    private static List<SaleRecord> sales(String sku, int count) {
+        List<SaleRecord> sales = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sales.add(new SaleRecord(sku, 1, LocalDateTime.now()));
+        }
+        return sales;
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'sale_record'::regclass",
+                String.class);
+    }
+
+    private void insertRaw(String sku, int quantity, LocalDateTime at) {
+        jdbcTemplate.update("INSERT INTO sale_record (sku, quantity_sold, sale_timestamp) VALUES (?, ?, ?)",
+                sku, quantity, Timestamp.valueOf(at));
+    }
+
+    // The scheduled flush may be draining the same buffer concurrently, so give it a moment
+    private long awaitCount(String sql, long expected) throws InterruptedException {
+        long count = 0;
+        for (int attempt = 0; attempt < 50 && count != expected; attempt++) {
+            count = jdbcTemplate.queryForObject(sql, Long.class);
+            if (count != expected) {
+                Thread.sleep(100);
+            }
+        }
+        return count;
+    }
+}
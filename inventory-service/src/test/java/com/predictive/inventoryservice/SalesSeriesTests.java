@@ -0,0 +1,162 @@
+package com.predictive.inventoryservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SalesSeriesTests extends PostgresIntegrationTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 5, 6, 0, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private SalesSeriesService salesSeriesService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    // Not the context's writer: its scheduled flush would race the assertions
+    private SalesRollupWriter writer() {
+        return new SalesRollupWriter(jdbcTemplate, new OrderOffsetStore(jdbcTemplate), transactionManager, pipelineMetrics);
+    }
+
+    @Test
+    void rollupsAccumulateAcrossFlushesAtEveryResolution() {
+        SalesRollupWriter writer = writer();
+        writer.append(List.of(
+                new SaleRecord("ROLL-1", 2, DAY.plusHours(9).plusSeconds(5)),
+                new SaleRecord("ROLL-1", 3, DAY.plusHours(9).plusSeconds(50)),
+                new SaleRecord("ROLL-1", 4, DAY.plusHours(9).plusMinutes(1))));
+        writer.flush();
+        writer.append(List.of(new SaleRecord("ROLL-1", 1, DAY.plusHours(9).plusSeconds(30))));
+        writer.flush();
+
+        assertThat(units("sale_minute_rollup", "ROLL-1", DAY.plusHours(9))).isEqualTo(6);
+        assertThat(units("sale_minute_rollup", "ROLL-1", DAY.plusHours(9).plusMinutes(1))).isEqualTo(4);
+        assertThat(units("sale_hour_rollup", "ROLL-1", DAY.plusHours(9))).isEqualTo(10);
+        assertThat(units("sale_day_rollup", "ROLL-1", DAY)).isEqualTo(10);
+        assertThat(writer.pendingBuckets()).isZero();
+    }
+
+    @Test
+    void failedFlushWritesNoTableAndIsRetriedWhole() {
+        JdbcTemplate dayTableDown = spy(jdbcTemplate);
+        doThrow(new DataAccessResourceFailureException("connection reset")).doCallRealMethod()
+                .when(dayTableDown).batchUpdate(contains("sale_day_rollup"), anyList());
+        SalesRollupWriter writer = new SalesRollupWriter(dayTableDown, new OrderOffsetStore(dayTableDown), transactionManager, pipelineMetrics);
+        writer.append(List.of(new SaleRecord("ROLL-TX", 5, DAY.plusHours(11))));
+
+        writer.flush();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sale_minute_rollup WHERE sku = 'ROLL-TX'", Long.class))
+                .isZero(); // rolled back with the day upsert
+        assertThat(writer.pendingBuckets()).isEqualTo(1);
+
+        writer.flush();
+
+        assertThat(units("sale_minute_rollup", "ROLL-TX", DAY.plusHours(11))).isEqualTo(5);
+        assertThat(units("sale_hour_rollup", "ROLL-TX", DAY.plusHours(11))).isEqualTo(5);
+        assertThat(units("sale_day_rollup", "ROLL-TX", DAY)).isEqualTo(5);
+        assertThat(writer.pendingBuckets()).isZero();
+    }
+
+    @Test
+    void flushStoresTheOffsetsItsSalesEndAtAndReplaysSkipWhatWasAppended() {
+        JdbcTemplate dayTableDown = spy(jdbcTemplate);
+        doThrow(new DataAccessResourceFailureException("connection reset")).doCallRealMethod()
+                .when(dayTableDown).batchUpdate(contains("sale_day_rollup"), anyList());
+        OrderOffsetStore offsets = new OrderOffsetStore(jdbcTemplate);
+        SalesRollupWriter writer = new SalesRollupWriter(dayTableDown, offsets, transactionManager, pipelineMetrics);
+        writer.append(List.of(new SaleRecord("ROLL-OFFSET", 2, DAY.plusHours(12))), Map.of(90, 41L));
+
+        writer.flush();
+        assertThat(offsets.load(SalesRollupWriter.OFFSETS_TOPIC)).doesNotContainKey(90); // rolled back with the sales
+
+        writer.flush();
+        assertThat(offsets.load(SalesRollupWriter.OFFSETS_TOPIC)).containsEntry(90, 41L);
+
+        // After a restart the partition resumes at the stored offset; a redelivery below what was appended is skipped
+        SalesRollupWriter restarted = writer();
+        assertThat(restarted.resumeAt(90, 41L)).isEqualTo(41L);
+        assertThat(restarted.appendedOffset(90)).isEqualTo(41L);
+        assertThat(writer.appendedOffset(90)).isEqualTo(41L);
+    }
+
+    @Test
+    void longRangesAreDownsampledFromCoarserRollups() {
+        SalesRollupWriter writer = writer();
+        List<SaleRecord> sales = new ArrayList<>();
+        for (int minute = 0; minute < 24 * 60; minute += 7) {
+            sales.add(new SaleRecord("ROLL-DAY", 1, DAY.plusMinutes(minute)));
+        }
+        writer.append(sales);
+        writer.flush();
+
+        SalesSeriesService.Series daily = salesSeriesService.series("ROLL-DAY", DAY, DAY.plusDays(1), 24);
+        assertThat(daily.resolution()).isEqualTo(SalesResolution.HOUR);
+        assertThat(daily.stepSeconds()).isEqualTo(3600);
+        assertThat(daily.points()).hasSize(24);
+        assertThat(daily.points().stream().mapToLong(SalesSeriesService.Point::unitsSold).sum()).isEqualTo(sales.size());
+
+        SalesSeriesService.Series twoHours = salesSeriesService.series("ROLL-DAY", DAY, DAY.plusHours(2), 1000);
+        assertThat(twoHours.resolution()).isEqualTo(SalesResolution.MINUTE);
+        assertThat(twoHours.points()).hasSize(120);
+        assertThat(twoHours.points().get(7).unitsSold()).isEqualTo(1);
+        assertThat(twoHours.points().get(8).unitsSold()).isZero();
+
+        // A year in 12 points still only reads day rows
+        assertThat(salesSeriesService.series("ROLL-DAY", DAY.minusYears(1), DAY.plusDays(1), 12).resolution())
+                .isEqualTo(SalesResolution.DAY);
+    }
+
+    @Test
+    void seriesEndpointReturnsDensePoints() throws Exception {
+        SalesRollupWriter writer = writer();
+        writer.append(List.of(new SaleRecord("ROLL-API", 5, DAY.plusMinutes(90))));
+        writer.flush();
+
+        mockMvc.perform(get("/api/inventory/sales/ROLL-API/series")
+                        .param("from", "2024-05-06T00:00:00").param("to", "2024-05-06T04:00:00").param("points", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resolution").value("HOUR"))
+                .andExpect(jsonPath("$.points.length()").value(4))
+                .andExpect(jsonPath("$.points[1].unitsSold").value(5))
+                .andExpect(jsonPath("$.points[2].unitsSold").value(0));
+
+        mockMvc.perform(get("/api/inventory/sales/ROLL-API/series")
+                        .param("from", "2024-05-06T04:00:00").param("to", "2024-05-06T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long units(String table, String sku, LocalDateTime bucketStart) {
+        return jdbcTemplate.queryForObject("SELECT units_sold FROM " + table + " WHERE sku = ? AND bucket_start = ?",
+                Long.class, sku, Timestamp.valueOf(bucketStart));
+    }
+}
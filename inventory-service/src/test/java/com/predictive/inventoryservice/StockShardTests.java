@@ -0,0 +1,97 @@
+package com.predictive.inventoryservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Stock split per location: writers pick shards (StockRouter), readers only ever see the sums
+class StockShardTests extends PostgresIntegrationTest {
+
+    @Autowired
+    private StockShardStore stockShardStore;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Test
+    void shardsAreSummedPerLocationAndInTotal() {
+        stockShardStore.register(new StockShardStore.Shard("SHARD-SUM", "EAST"), 40);
+        stockShardStore.add(new StockShardStore.Shard("SHARD-SUM", "WEST"), 25);
+        stockShardStore.decrement(new TreeMap<>(Map.of(
+                new StockShardStore.Shard("SHARD-SUM", "EAST"), 15,
+                new StockShardStore.Shard("SHARD-SUM", "WEST"), 5)), 100);
+
+        InventoryItem item = inventoryRepository.findBySku("SHARD-SUM").orElseThrow();
+        assertThat(item.getQuantity()).isEqualTo(45);
+        assertThat(item.getLocations()).containsExactlyInAnyOrderEntriesOf(Map.of("EAST", 25, "WEST", 20));
+    }
+
+    @Test
+    void oversellStopsAtZeroSoALaterRestockIsNotEatenByHiddenDebt() {
+        stockShardStore.register(new StockShardStore.Shard("OVERSELL", "EAST"), 5);
+        stockShardStore.add(new StockShardStore.Shard("OVERSELL", "WEST"), 5);
+        stockShardStore.decrement(new TreeMap<>(Map.of(new StockShardStore.Shard("OVERSELL", "EAST"), 8)), 100);
+
+        InventoryItem oversold = inventoryRepository.findBySku("OVERSELL").orElseThrow();
+        assertThat(oversold.getQuantity()).isEqualTo(5);
+        assertThat(oversold.getLocations()).containsExactlyInAnyOrderEntriesOf(Map.of("EAST", 0, "WEST", 5));
+
+        stockShardStore.add(new StockShardStore.Shard("OVERSELL", "EAST"), 10);
+
+        InventoryItem restocked = inventoryRepository.findBySku("OVERSELL").orElseThrow();
+        assertThat(restocked.getQuantity()).isEqualTo(15);
+        assertThat(restocked.getLocations()).containsExactlyInAnyOrderEntriesOf(Map.of("EAST", 10, "WEST", 5));
+    }
+
+    @Test
+    void creatingASkuBooksItsOpeningStockOnce() {
+        assertThat(stockShardStore.create(new StockShardStore.Shard("ONBOARD", "EAST"), 30)).isTrue();
+        assertThat(stockShardStore.create(new StockShardStore.Shard("ONBOARD", "EAST"), 30)).isFalse();
+
+        InventoryItem item = inventoryRepository.findBySku("ONBOARD").orElseThrow();
+        assertThat(item.getQuantity()).isEqualTo(30);
+        assertThat(item.getLocations()).containsExactly(Map.entry("EAST", 30));
+    }
+
+    @Test
+    void everyShardWriteMovesTheRevisionForward() {
+        StockShardStore.Shard main = new StockShardStore.Shard("SHARD-REV", "MAIN");
+        stockShardStore.register(main, 10);
+        long before = inventoryRepository.findBySku("SHARD-REV").orElseThrow().getRevision();
+
+        stockShardStore.decrement(new TreeMap<>(Map.of(new StockShardStore.Shard("SHARD-REV", "MAIN"), 1)), 100);
+        long afterOrder = inventoryRepository.findBySku("SHARD-REV").orElseThrow().getRevision();
+        inventoryRepository.updateAiVelocity("SHARD-REV", 3.0);
+        long afterVelocity = inventoryRepository.findBySku("SHARD-REV").orElseThrow().getRevision();
+
+        assertThat(afterOrder).isGreaterThan(before);
+        assertThat(afterVelocity).isGreaterThan(afterOrder);
+    }
+
+    @Test
+    void restocksWithoutALocationGoToTheEmptiestOne() {
+        StockRouter router = new StockRouter(List.of("EAST", "WEST", "NORTH"));
+        Map<String, Integer> stock = Map.of("EAST", 12, "WEST", 3, "NORTH", 9);
+
+        assertThat(router.restockShard("SKU", null, stock))
+                .isEqualTo(new StockShardStore.Shard("SKU", "WEST"));
+        assertThat(router.restockShard("SKU", "NORTH", stock).location()).isEqualTo("NORTH");
+        // Nothing stocked at NORTH yet counts as empty
+        assertThat(router.restockShard("SKU", "SOUTH", Map.of("EAST", 12, "WEST", 3)).location()).isEqualTo("NORTH");
+    }
+
+    @Test
+    void ordersShipFromTheNamedLocationOrTheDefaultOne() {
+        StockRouter router = new StockRouter(List.of("EAST", "WEST"));
+
+        assertThat(router.orderShard("SKU", null))
+                .isEqualTo(new StockShardStore.Shard("SKU", "EAST"));
+        assertThat(router.orderShard("SKU", "WEST").location()).isEqualTo("WEST");
+        assertThat(router.orderShard("SKU", "NOWHERE").location()).isEqualTo("EAST");
+    }
+}
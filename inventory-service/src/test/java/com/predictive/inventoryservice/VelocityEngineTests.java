@@ -0,0 +1,57 @@
+package com.predictive.inventoryservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class VelocityEngineTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Test
+    void lifetimeVelocityMatchesListBasedCalculation() {
+        VelocityEngine engine = new VelocityEngine(60);
+        List<SaleRecord> history = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime at = START.plusSeconds(i * 3L);
+            history.add(new SaleRecord("SKU-1", 1 + i % 4, at));
+            engine.record("SKU-1", 1 + i % 4, at.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+
+        double expected = new PredictiveService(engine).calculateVelocity(history);
+
+        assertThat(engine.lifetimeVelocityPerSecond("SKU-1")).isCloseTo(expected, within(1e-9));
+    }
+
+    @Test
+    void decayedVelocityTracksSteadyRateAndFadesWhenSalesStop() {
+        VelocityEngine engine = new VelocityEngine(60);
+        long t = 0;
+        // 2 units/second for ten minutes
+        for (int i = 0; i < 600; i++) {
+            t = i * 1000L;
+            engine.record("SKU-2", 2, t);
+        }
+
+        assertThat(engine.velocityPerSecond("SKU-2", t)).isCloseTo(2.0, within(0.05));
+        assertThat(engine.windowVelocityPerSecond("SKU-2", t)).isCloseTo(2.0, within(0.05));
+
+        // One decay constant later with no sales the rate has dropped by a factor of e
+        assertThat(engine.velocityPerSecond("SKU-2", t + 60_000)).isCloseTo(2.0 / Math.E, within(0.05));
+        assertThat(engine.windowVelocityPerSecond("SKU-2", t + 61_000)).isZero();
+    }
+
+    @Test
+    void unknownSkuHasNoVelocity() {
+        VelocityEngine engine = new VelocityEngine(60);
+
+        assertThat(engine.velocityPerSecond("NOPE")).isZero();
+        assertThat(new PredictiveService(engine).predictTimeToEmpty("NOPE", 10)).isEqualTo("Stable");
+    }
+}
@@ -0,0 +1,67 @@
+package com.predictive.inventoryservice;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// A client that stops reading must lose its oldest frames, not its session
+class WebSocketSlowConsumerTests {
+
+    @Test
+    void slowClientDropsFramesAndStaysConnected() throws Exception {
+        WebSocketConfig.DroppingSubProtocolWebSocketHandler handler = new WebSocketConfig.DroppingSubProtocolWebSocketHandler(
+                new ExecutorSubscribableChannel(), new ExecutorSubscribableChannel());
+        handler.setSendTimeLimit(60_000);
+        handler.setSendBufferSizeLimit(1024);
+
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch clientReads = new CountDownLatch(1);
+        WebSocketSession client = mock(WebSocketSession.class);
+        when(client.getId()).thenReturn("slow");
+        when(client.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            sending.countDown();
+            clientReads.await(); // the socket's send buffer is full until the client reads again
+            return null;
+        }).when(client).sendMessage(any());
+
+        ConcurrentWebSocketSessionDecorator session = (ConcurrentWebSocketSessionDecorator) handler.decorateSession(client);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> send(session, frame(0)));
+        assertThat(sending.await(10, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 1; i <= 50; i++) {
+            send(session, frame(i)); // 50 x 100 bytes queue up behind the blocked send
+        }
+
+        assertThat(session.getBufferSize()).isLessThanOrEqualTo(1024);
+        verify(client, never()).close(any());
+        clientReads.countDown();
+        first.get(10, TimeUnit.SECONDS);
+    }
+
+    private static TextMessage frame(int number) {
+        return new TextMessage(String.format("%-100d", number));
+    }
+
+    private static void send(WebSocketSession session, TextMessage message) {
+        try {
+            session.sendMessage(message);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
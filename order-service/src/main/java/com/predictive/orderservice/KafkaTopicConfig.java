@@ -0,0 +1,23 @@
+package com.predictive.orderservice;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    // order-events is keyed by SKU, so partitions are the unit of parallelism on the inventory side:
+    // each inventory consumer thread owns some partitions and sees every order for its SKUs in order.
+    // Raising the count later re-maps keys to partitions, so drain the topic before growing it.
+    @Bean
+    public NewTopic orderEventsTopic(@Value("${orders.topic.partitions:16}") int partitions,
+                                     @Value("${orders.topic.replicas:1}") short replicas) {
+        return TopicBuilder.name(OrderController.ORDER_EVENTS_TOPIC)
+                .partitions(partitions)
+                .replicas(replicas)
+                .build();
+    }
+}
@@ -1,29 +1,114 @@
 package com.predictive.orderservice;
 
-import org.springframework.kafka.core.KafkaTemplate;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @RestController
 @RequestMapping("/api/orders")
 @CrossOrigin(origins = "*") // ⬅️ ADD THIS LINE to allow React button clicks!
 public class OrderController {
 
-    // Notice we changed <String, String> to <String, OrderEvent>
-    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+    static final String ORDER_EVENTS_TOPIC = "order-events";
+
+    private final OrderPublisher orderPublisher;
+    private final int maxBulkSize;
+    // One reader for both bodies: a JSON array is unwrapped element by element, NDJSON is read value by value
+    private final ObjectReader orderReader = new ObjectMapper().readerFor(OrderEvent.class);
 
-    public OrderController(KafkaTemplate<String, OrderEvent> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    public OrderController(OrderPublisher orderPublisher, @Value("${orders.bulk.max-size:10000}") int maxBulkSize) {
+        this.orderPublisher = orderPublisher;
+        this.maxBulkSize = maxBulkSize;
     }
 
+    // The response is sent when Kafka acks the order; the servlet thread is released while we wait
     @PostMapping("/place")
-    public String placeOrder(@RequestParam String sku, @RequestParam int quantity) {
+    public CompletableFuture<ResponseEntity<String>> placeOrder(@RequestParam String sku, @RequestParam int quantity,
+                                                                @RequestParam(required = false) String location) {
 
         // 1. Create your real Java data object
-        OrderEvent event = new OrderEvent(sku, quantity);
+        OrderEvent event = new OrderEvent(sku, quantity, System.currentTimeMillis());
+        event.setLocation(location);
+        String invalid = validate(event);
+        if (invalid != null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(invalid));
+        }
+
+        // 2. Send the object to Kafka (Spring turns it into JSON for you!) and answer once it is acked
+        return orderPublisher.publish(List.of(event), "single")
+                .thenApply(acked -> ResponseEntity.ok("Order placed and JSON event published to Kafka!"))
+                .exceptionally(error -> ResponseEntity.status(statusFor(error)).body(rootCause(error).getMessage()));
+    }
 
-        // 2. Send the object directly to Kafka (Spring turns it into JSON for you!)
-        kafkaTemplate.send("order-events", event);
+    // Bulk ingestion for the checkout gateway: a JSON array or NDJSON (one order per line), acked as a whole
+    @PostMapping(value = "/bulk", consumes = {"application/json", "application/x-ndjson"})
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> placeOrders(InputStream body) {
+        long receivedAt = System.currentTimeMillis();
+        List<OrderEvent> orders = new ArrayList<>();
+        try (MappingIterator<OrderEvent> values = orderReader.readValues(body)) {
+            while (values.hasNextValue()) {
+                OrderEvent order = values.nextValue();
+                String invalid = validate(order);
+                if (invalid != null) {
+                    return badRequest("Order #" + orders.size() + ": " + invalid);
+                }
+                if (orders.size() == maxBulkSize) {
+                    return badRequest("At most " + maxBulkSize + " orders per request");
+                }
+                order.setCreatedAt(receivedAt); // the whole request counts as accepted when it arrived
+                orders.add(order);
+            }
+        } catch (IOException | RuntimeException e) {
+            return badRequest("Unreadable order #" + orders.size() + ": " + e.getMessage());
+        }
+
+        if (orders.isEmpty()) {
+            return badRequest("No orders in request body");
+        }
+
+        return orderPublisher.publish(orders, "bulk")
+                .thenApply(acked -> ResponseEntity.ok(Map.<String, Object>of("accepted", acked)))
+                .exceptionally(error -> ResponseEntity.status(statusFor(error))
+                        .body(Map.of("accepted", 0, "error", String.valueOf(rootCause(error).getMessage()))));
+    }
+
+    private static String validate(OrderEvent order) {
+        if (order == null || order.getSku() == null || order.getSku().isBlank()) {
+            return "sku is required";
+        }
+        if (order.getQuantity() <= 0) {
+            return "quantity must be positive";
+        }
+        return null;
+    }
+
+    private static CompletableFuture<ResponseEntity<Map<String, Object>>> badRequest(String message) {
+        return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("accepted", 0, "error", message)));
+    }
+
+    private static HttpStatus statusFor(Throwable error) {
+        Throwable cause = rootCause(error);
+        if (cause instanceof StockView.OutOfStockException) {
+            return HttpStatus.CONFLICT;
+        }
+        return cause instanceof OrderPublisher.OverloadedException
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+    }
 
-        return "Order placed and JSON event published to Kafka!";
+    private static Throwable rootCause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
-}
\ No newline at end of file
+}
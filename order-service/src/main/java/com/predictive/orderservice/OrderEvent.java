@@ -1,8 +1,15 @@
 package com.predictive.orderservice;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class OrderEvent {
     private String sku;
     private int quantity;
+    // Epoch millis when order-service accepted the order; inventory-service measures end-to-end latency from it
+    private long createdAt;
+    // Warehouse to ship from; left out of the JSON when the customer doesn't care (inventory picks the default)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String location;
 
     // Default constructor is required for Spring to convert JSON
     public OrderEvent() {
@@ -13,8 +20,18 @@ public class OrderEvent {
         this.quantity = quantity;
     }
 
+    public OrderEvent(String sku, int quantity, long createdAt) {
+        this.sku = sku;
+        this.quantity = quantity;
+        this.createdAt = createdAt;
+    }
+
     public String getSku() { return sku; }
     public void setSku(String sku) { this.sku = sku; }
     public int getQuantity() { return quantity; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.predictive.orderservice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends orders to Kafka and hands back a future that completes only when the broker has acked every one
+// of them (acks=all), so a 2xx from the API really means "durably queued".
+// Orders are admitted against StockView first: an order that would oversell is rejected before it is sent.
+@Service
+public class OrderPublisher {
+
+    private final KafkaTemplate<String, OrderEvent> kafkaTemplate;
+    private final StockView stockView;
+    private final int maxInFlight;
+
+    // Orders handed to the producer but not acked yet; bounded so a slow broker turns into 429s, not OOM
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter ordersAcked;
+    private final Counter ordersFailed;
+    private final MeterRegistry meterRegistry;
+
+    public OrderPublisher(KafkaTemplate<String, OrderEvent> kafkaTemplate,
+                          StockView stockView,
+                          MeterRegistry meterRegistry,
+                          @Value("${orders.max-in-flight:200000}") int maxInFlight) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.stockView = stockView;
+        this.meterRegistry = meterRegistry;
+        this.maxInFlight = maxInFlight;
+        this.ordersAcked = meterRegistry.counter("orders.published", "result", "acked");
+        this.ordersFailed = meterRegistry.counter("orders.published", "result", "failed");
+        meterRegistry.gauge("orders.in-flight", inFlight);
+    }
+
+    public static class OverloadedException extends RuntimeException {
+        public OverloadedException(int inFlight) {
+            super("Too many orders awaiting Kafka acknowledgement (" + inFlight + ")");
+        }
+    }
+
+    // Completes with the number of acked orders; fails if any order could not be delivered.
+    // All or nothing for stock: if one order of a bulk request does not fit, none of them is sent.
+    public CompletableFuture<Integer> publish(List<OrderEvent> orders, String endpoint) {
+        if (!stockView.isReady()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Stock view is still loading"));
+        }
+        int admitted = inFlight.addAndGet(orders.size());
+        if (admitted > maxInFlight) {
+            inFlight.addAndGet(-orders.size());
+            return CompletableFuture.failedFuture(new OverloadedException(admitted - orders.size()));
+        }
+
+        StockView.Reservation[] reservations = new StockView.Reservation[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            OrderEvent order = orders.get(i);
+            reservations[i] = stockView.reserve(order.getSku(), order.getQuantity());
+            if (reservations[i] == null) {
+                StockView.OutOfStockException shortage = new StockView.OutOfStockException(order.getSku(), order.getQuantity(),
+                        stockView.available(order.getSku()));
+                for (int held = 0; held < i; held++) {
+                    reservations[held].release();
+                }
+                inFlight.addAndGet(-orders.size());
+                return CompletableFuture.failedFuture(shortage);
+            }
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<?>[] acks = new CompletableFuture<?>[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            acks[i] = send(orders.get(i), reservations[i]);
+        }
+
+        return CompletableFuture.allOf(acks)
+                .whenComplete((ignored, error) -> sample.stop(meterRegistry.timer("orders.ingest.latency",
+                        "endpoint", endpoint, "outcome", error == null ? "acked" : "failed")))
+                .thenApply(ignored -> orders.size());
+    }
+
+    private CompletableFuture<?> send(OrderEvent order, StockView.Reservation reservation) {
+        try {
+            // Keyed by SKU: every order for a SKU lands on the same partition, so it is consumed in order
+            return kafkaTemplate.send(OrderController.ORDER_EVENTS_TOPIC, order.getSku(), order)
+                    .whenComplete((result, error) -> {
+                        inFlight.decrementAndGet();
+                        (error == null ? ordersAcked : ordersFailed).increment();
+                        if (error != null) {
+                            reservation.release();
+                        } else if (result != null && result.getRecordMetadata() != null) {
+                            // The offset is how we recognise the stock level that includes this order
+                            reservation.confirmed(result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+                        }
+                    });
+        } catch (RuntimeException e) {
+            // e.g. the producer buffer stayed full for max.block.ms
+            inFlight.decrementAndGet();
+            ordersFailed.increment();
+            reservation.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
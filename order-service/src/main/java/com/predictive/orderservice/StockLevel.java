@@ -0,0 +1,35 @@
+package com.predictive.orderservice;
+
+// One SKU's stock as published by inventory-service on the compacted inventory-stock topic.
+// appliedOffset: the quantity includes every order-events record before this offset on that partition
+// (-1 for changes that did not come from orders, e.g. restocks).
+public class StockLevel {
+    private String sku;
+    private int quantity;
+    private long revision;
+    private int partition = -1;
+    private long appliedOffset = -1;
+
+    // Default constructor is required for Spring to convert JSON
+    public StockLevel() {
+    }
+
+    public StockLevel(String sku, int quantity, long revision, int partition, long appliedOffset) {
+        this.sku = sku;
+        this.quantity = quantity;
+        this.revision = revision;
+        this.partition = partition;
+        this.appliedOffset = appliedOffset;
+    }
+
+    public String getSku() { return sku; }
+    public void setSku(String sku) { this.sku = sku; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public long getRevision() { return revision; }
+    public void setRevision(long revision) { this.revision = revision; }
+    public int getPartition() { return partition; }
+    public void setPartition(int partition) { this.partition = partition; }
+    public long getAppliedOffset() { return appliedOffset; }
+    public void setAppliedOffset(long appliedOffset) { this.appliedOffset = appliedOffset; }
+}
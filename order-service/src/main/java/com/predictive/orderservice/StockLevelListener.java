@@ -0,0 +1,89 @@
+package com.predictive.orderservice;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Feeds StockView from inventory-stock. Every instance reads the whole compacted topic from the beginning
+// (unique group per instance), so a restart rebuilds the view without asking inventory-service for anything.
+@Component
+public class StockLevelListener implements ConsumerSeekAware {
+
+    static final String STOCK_TOPIC = "inventory-stock";
+
+    private static final LogAccessor LOGGER = new LogAccessor(StockLevelListener.class);
+
+    private final StockView stockView;
+
+    // Until the view is ready: partitions assigned whose end offsets have not been read yet (-> start position),
+    // then each partition's end offset at that point, removed once a record just before it was applied
+    private final Map<TopicPartition, Long> assignedFrom = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Long> catchUpTargets = new ConcurrentHashMap<>();
+
+    public StockLevelListener(StockView stockView) {
+        this.stockView = stockView;
+    }
+
+    @KafkaListener(topics = STOCK_TOPIC,
+            groupId = "order-stock-view-#{T(java.util.UUID).randomUUID().toString()}",
+            autoStartup = "${orders.stock.enabled:true}",
+            properties = "auto.offset.reset=earliest")
+    public void handleStockLevel(ConsumerRecord<String, StockLevel> record, Consumer<?, ?> consumer) {
+        StockLevel level = record.value();
+        if (level != null && level.getSku() != null) { // null: a tombstone (SKU deleted upstream), nothing to admit against
+            stockView.apply(level);
+        }
+        if (!stockView.isReady()) {
+            trackCatchUp(record, consumer);
+        }
+    }
+
+    // Caught up = every partition read up to where its end was when we started, i.e. the view is at least as
+    // complete as the topic was. Under constant traffic there is always something newer to read, so waiting
+    // for the consumer to run dry (onIdleContainer) alone could keep orders at 503 forever.
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        if (!stockView.isReady()) {
+            assignedFrom.putAll(assignments);
+        }
+    }
+
+    // An empty topic never reaches the listener: idle with partitions assigned means there is nothing to read
+    @Override
+    public void onIdleContainer(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        if (!assignments.isEmpty() && !stockView.isReady()) {
+            caughtUp();
+        }
+    }
+
+    // On the consumer thread, which is the only one allowed to use the consumer
+    private void trackCatchUp(ConsumerRecord<?, ?> record, Consumer<?, ?> consumer) {
+        if (!assignedFrom.isEmpty()) {
+            Map<TopicPartition, Long> started = new HashMap<>(assignedFrom);
+            assignedFrom.keySet().removeAll(started.keySet());
+            consumer.endOffsets(started.keySet()).forEach((partition, end) -> {
+                if (started.get(partition) < end) {
+                    catchUpTargets.put(partition, end);
+                }
+            });
+        }
+        catchUpTargets.computeIfPresent(new TopicPartition(record.topic(), record.partition()),
+                (partition, end) -> record.offset() + 1 >= end ? null : end);
+        if (catchUpTargets.isEmpty() && assignedFrom.isEmpty()) {
+            caughtUp();
+        }
+    }
+
+    private void caughtUp() {
+        stockView.markCaughtUp();
+        LOGGER.info(() -> "Stock view caught up with " + STOCK_TOPIC);
+    }
+}
@@ -0,0 +1,201 @@
+package com.predictive.orderservice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Local, eventually consistent copy of inventory-service's stock, built from the compacted inventory-stock
+// topic (StockLevelListener), so orders are admitted in memory instead of oversold and clamped at zero later.
+//
+// Per SKU: available = last published quantity - units reserved by orders inventory has not applied yet.
+// A reservation is a CAS loop on that one counter (no locks, no I/O); it is settled (its units handed back,
+// because the published quantity now includes the order) once a level arrives whose appliedOffset is past
+// the order's offset on order-events. Every race resolves towards less stock, never more.
+//
+// Only SKUs inventory-service has published can be ordered: anything else is rejected and never enters the map,
+// so the view is as large as the catalogue, not as large as whatever SKUs clients send. New SKUs are onboarded
+// on inventory-service (POST /api/inventory/skus), whose level then arrives here like any other.
+// Reservations are per instance: each order-service replica holds its own and only learns about the others'
+// orders once inventory-service publishes them, so N replicas can each admit the same last units (at most
+// N times the stock, clamped at zero by inventory-service). Run one replica, or route a SKU's orders to one
+// replica, where that matters.
+@Component
+public class StockView {
+
+    private final Map<String, SkuStock> stock = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Counter admitted;
+    private final Counter rejected;
+
+    private volatile boolean caughtUp;
+
+    public StockView(MeterRegistry meterRegistry,
+                     @Value("${orders.stock.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        this.admitted = meterRegistry.counter("orders.stock.reservations", "result", "admitted");
+        this.rejected = meterRegistry.counter("orders.stock.reservations", "result", "rejected");
+        meterRegistry.gaugeMapSize("orders.stock.skus", Tags.empty(), stock);
+    }
+
+    public static class OutOfStockException extends RuntimeException {
+        public OutOfStockException(String sku, int requested, long available) {
+            super("Only " + Math.max(0, available) + " of " + sku + " available, " + requested + " requested");
+        }
+    }
+
+    // Disabled: every order is admitted, as before. Enabled: not before the topic has been read to its end once.
+    public boolean isReady() {
+        return !enabled || caughtUp;
+    }
+
+    void markCaughtUp() {
+        caughtUp = true;
+    }
+
+    // Null when there is not enough stock or the SKU is unknown (nothing is held then)
+    public Reservation reserve(String sku, int quantity) {
+        if (!enabled) {
+            return Reservation.UNTRACKED;
+        }
+        SkuStock entry = stock.get(sku);
+        if (entry == null || !entry.tryTake(quantity)) {
+            rejected.increment();
+            return null;
+        }
+        admitted.increment();
+        return new Reservation(entry, quantity);
+    }
+
+    public long available(String sku) {
+        SkuStock entry = stock.get(sku);
+        return entry == null ? 0 : entry.available.get();
+    }
+
+    int pendingReservations(String sku) {
+        SkuStock entry = stock.get(sku);
+        return entry == null ? 0 : entry.pending.size();
+    }
+
+    // Called for every record on inventory-stock, in order per SKU (the topic is keyed by SKU)
+    public void apply(StockLevel level) {
+        stock.computeIfAbsent(level.getSku(), sku -> new SkuStock()).apply(level);
+    }
+
+    // Units held for one order until inventory-service has applied it (or it never reached Kafka)
+    public static final class Reservation {
+
+        static final Reservation UNTRACKED = new Reservation(null, 0);
+
+        private final SkuStock stock;
+        private final int units;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile int partition = -1;
+        private volatile long offset = -1;
+
+        private Reservation(SkuStock stock, int units) {
+            this.stock = stock;
+            this.units = units;
+        }
+
+        // Acked by Kafka: settles once a stock level covers this offset (maybe already has)
+        public void confirmed(int partition, long offset) {
+            if (stock != null) {
+                this.partition = partition;
+                this.offset = offset;
+                stock.confirmed(this);
+            }
+        }
+
+        // The order was never published: hand the units back
+        public void release() {
+            settle();
+        }
+
+        private boolean coveredBy(Applied applied) {
+            return partition == applied.partition() && offset >= 0 && offset < applied.offset();
+        }
+
+        // Idempotent: a reservation hands its units back exactly once, however release and apply race
+        private boolean settle() {
+            if (stock != null && done.compareAndSet(false, true)) {
+                stock.available.addAndGet(units);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class SkuStock {
+
+        private final AtomicLong available;
+        // Acked reservations waiting for inventory-service to apply their order
+        private final Queue<Reservation> pending = new ConcurrentLinkedQueue<>();
+
+        // Last level applied; written under the SkuStock monitor (one listener thread in practice)
+        private long quantity;
+        private long revision = -1; // -1: no level applied yet (the first one always is)
+        private volatile Applied applied = Applied.NONE;
+
+        SkuStock() {
+            this.available = new AtomicLong();
+        }
+
+        boolean tryTake(int units) {
+            long current;
+            do {
+                current = available.get();
+                if (current < units) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - units));
+            return true;
+        }
+
+        synchronized void apply(StockLevel level) {
+            // An older revision (levels can be published out of order) says nothing new about the quantity...
+            if (level.getRevision() > revision) {
+                available.addAndGet(level.getQuantity() - quantity);
+                quantity = level.getQuantity();
+                revision = level.getRevision();
+            }
+            // ...but its appliedOffset still holds: any newer revision already includes those orders
+            if (level.getAppliedOffset() >= 0
+                    && (level.getPartition() != applied.partition() || level.getAppliedOffset() > applied.offset())) {
+                applied = new Applied(level.getPartition(), level.getAppliedOffset());
+            }
+            // Quantity first, settlements second: in between, readers see less stock, not more
+            for (Iterator<Reservation> it = pending.iterator(); it.hasNext(); ) {
+                Reservation reservation = it.next();
+                if (reservation.coveredBy(applied)) {
+                    reservation.settle();
+                    it.remove();
+                }
+            }
+        }
+
+        // Queued before checking the offset, while apply moves the offset before scanning the queue:
+        // whichever runs second sees the other, so a reservation is never left pending behind its level
+        void confirmed(Reservation reservation) {
+            pending.add(reservation);
+            if (reservation.coveredBy(applied)) {
+                reservation.settle();
+                pending.remove(reservation);
+            }
+        }
+    }
+
+    // Where inventory-service is on order-events for one SKU (the SKU's partition + next offset to apply)
+    private record Applied(int partition, long offset) {
+        static final Applied NONE = new Applied(-1, -1);
+    }
+}
@@ -0,0 +1,163 @@
+package com.predictive.orderservice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(OrderController.class)
+@Import({OrderPublisher.class, StockView.class, OrderControllerTests.Metrics.class})
+class OrderControllerTests {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StockView stockView;
+
+    @MockitoBean
+    private KafkaTemplate<String, OrderEvent> kafkaTemplate;
+
+    // No inventory-stock consumer here: the catalogue the tests order from is applied by hand
+    @BeforeEach
+    void stockViewLoaded() {
+        for (String sku : new String[]{"SKU-1", "A", "B", "C", "PLENTY"}) {
+            stockView.apply(new StockLevel(sku, 100, 1, -1, -1));
+        }
+        stockView.markCaughtUp();
+    }
+
+    @Test
+    void singleOrderIsAnsweredAfterTheAckAndKeyedBySku() throws Exception {
+        when(kafkaTemplate.send(anyString(), anyString(), any(OrderEvent.class))).thenReturn(acked());
+        long before = System.currentTimeMillis();
+
+        perform(post("/api/orders/place").param("sku", "SKU-1").param("quantity", "2"))
+                .andExpect(status().isOk());
+
+        verify(kafkaTemplate).send(eq("order-events"), eq("SKU-1"),
+                argThat(order -> order.getCreatedAt() >= before && order.getCreatedAt() <= System.currentTimeMillis()));
+    }
+
+    @Test
+    void bulkAcceptsJsonArraysAndNdjson() throws Exception {
+        when(kafkaTemplate.send(anyString(), anyString(), any(OrderEvent.class))).thenReturn(acked());
+        double ackedBefore = meterRegistry.get("orders.published").tag("result", "acked").counter().count();
+
+        perform(post("/api/orders/bulk").contentType("application/json")
+                .content("[{\"sku\":\"A\",\"quantity\":1},{\"sku\":\"B\",\"quantity\":3}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2));
+
+        perform(post("/api/orders/bulk").contentType("application/x-ndjson")
+                .content("{\"sku\":\"A\",\"quantity\":1}\n{\"sku\":\"C\",\"quantity\":5}\n{\"sku\":\"A\",\"quantity\":2}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(3));
+
+        verify(kafkaTemplate, times(3)).send(eq("order-events"), eq("A"), argThat(order -> order.getCreatedAt() > 0));
+        assertThat(meterRegistry.get("orders.published").tag("result", "acked").counter().count() - ackedBefore).isEqualTo(5);
+        assertThat(meterRegistry.get("orders.in-flight").gauge().value()).isZero();
+    }
+
+    @Test
+    void invalidBulkIsRejectedBeforeAnythingIsSent() throws Exception {
+        perform(post("/api/orders/bulk").contentType("application/x-ndjson")
+                .content("{\"sku\":\"A\",\"quantity\":1}\n{\"sku\":\"\",\"quantity\":1}\n"))
+                .andExpect(status().isBadRequest());
+
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any(OrderEvent.class));
+    }
+
+    @Test
+    void failedAckIsReportedAsUnavailable() throws Exception {
+        when(kafkaTemplate.send(anyString(), anyString(), any(OrderEvent.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        perform(post("/api/orders/bulk").contentType("application/json").content("[{\"sku\":\"A\",\"quantity\":1}]"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.error").value("broker down"));
+    }
+
+    @Test
+    void bulkThatWouldOversellIsRejectedWhole() throws Exception {
+        stockView.apply(new StockLevel("SCARCE", 5, 1, 0, 0));
+
+        perform(post("/api/orders/bulk").contentType("application/json")
+                .content("[{\"sku\":\"PLENTY\",\"quantity\":3},{\"sku\":\"SCARCE\",\"quantity\":4},{\"sku\":\"SCARCE\",\"quantity\":2}]"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.accepted").value(0))
+                .andExpect(jsonPath("$.error").value("Only 1 of SCARCE available, 2 requested"));
+
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any(OrderEvent.class));
+        assertThat(stockView.available("SCARCE")).isEqualTo(5); // the first two reservations were handed back
+        assertThat(stockView.available("PLENTY")).isEqualTo(100);
+    }
+
+    @Test
+    void unknownSkuIsRejected() throws Exception {
+        perform(post("/api/orders/place").param("sku", "NOT-IN-CATALOGUE").param("quantity", "1"))
+                .andExpect(status().isConflict());
+
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any(OrderEvent.class));
+    }
+
+    @Test
+    void failedSendHandsTheStockBack() throws Exception {
+        when(kafkaTemplate.send(anyString(), anyString(), any(OrderEvent.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        stockView.apply(new StockLevel("RETRY", 3, 1, 0, 0));
+
+        perform(post("/api/orders/place").param("sku", "RETRY").param("quantity", "3"))
+                .andExpect(status().isServiceUnavailable());
+
+        assertThat(stockView.available("RETRY")).isEqualTo(3);
+    }
+
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request).andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
+
+    private static CompletableFuture<SendResult<String, OrderEvent>> acked() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,53 @@
+package com.predictive.orderservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StockLevelListenerTests {
+
+    private static final TopicPartition P0 = new TopicPartition(StockLevelListener.STOCK_TOPIC, 0);
+    private static final TopicPartition P1 = new TopicPartition(StockLevelListener.STOCK_TOPIC, 1);
+
+    private final StockView view = new StockView(new SimpleMeterRegistry(), true);
+    private final StockLevelListener listener = new StockLevelListener(view);
+
+    @Test
+    void readyOnceTheEndOffsetsSeenAtAssignmentAreReachedEvenWhileLevelsKeepComing() {
+        Consumer<?, ?> consumer = mock(Consumer.class);
+        when(consumer.endOffsets(Set.of(P0, P1))).thenReturn(Map.of(P0, 3L, P1, 0L));
+        listener.onPartitionsAssigned(Map.of(P0, 0L, P1, 0L), null);
+
+        listener.handleStockLevel(level(0, 0, "A"), consumer);
+        listener.handleStockLevel(level(0, 1, "B"), consumer);
+        assertThat(view.isReady()).isFalse();
+
+        listener.handleStockLevel(level(0, 2, "A"), consumer); // the last one that existed at startup
+        assertThat(view.isReady()).isTrue();
+        listener.handleStockLevel(level(0, 3, "C"), consumer); // published since: never waited for
+        assertThat(view.available("C")).isEqualTo(4);
+    }
+
+    @Test
+    void emptyTopicIsReadyWhenTheContainerGoesIdle() {
+        listener.onPartitionsAssigned(Map.of(P0, 0L), null);
+        assertThat(view.isReady()).isFalse();
+
+        listener.onIdleContainer(Map.of(P0, 0L), null);
+        assertThat(view.isReady()).isTrue();
+    }
+
+    private static ConsumerRecord<String, StockLevel> level(int partition, long offset, String sku) {
+        return new ConsumerRecord<>(StockLevelListener.STOCK_TOPIC, partition, offset, sku,
+                new StockLevel(sku, 4, offset + 1, -1, -1));
+    }
+}
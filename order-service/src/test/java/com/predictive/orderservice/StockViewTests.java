@@ -0,0 +1,255 @@
+package com.predictive.orderservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockViewTests {
+
+    private static final int THREADS = 32;
+
+    private static StockView view() {
+        StockView view = new StockView(new SimpleMeterRegistry(), true);
+        view.markCaughtUp();
+        return view;
+    }
+
+    @Test
+    void manyThreadsOnOneSkuNeverOversell() throws Exception {
+        StockView view = view();
+        view.apply(new StockLevel("HOT", 5_000, 1, 0, 0));
+
+        AtomicLong reservedUnits = new AtomicLong();
+        AtomicLong rejections = new AtomicLong();
+        hammer(THREADS, () -> {
+            // Keep asking until a few rejections in a row say the SKU is gone
+            int misses = 0;
+            while (misses < 20) {
+                int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                if (view.reserve("HOT", quantity) != null) {
+                    reservedUnits.addAndGet(quantity);
+                    misses = 0;
+                } else {
+                    rejections.incrementAndGet();
+                    misses++;
+                }
+            }
+        });
+
+        assertThat(reservedUnits.get()).isLessThanOrEqualTo(5_000);
+        assertThat(view.available("HOT")).isEqualTo(5_000 - reservedUnits.get()).isBetween(0L, 2L);
+        assertThat(rejections.get()).isPositive();
+    }
+
+    @Test
+    void singleUnitsAreHandedOutExactlyOnce() throws Exception {
+        StockView view = view();
+        view.apply(new StockLevel("LAST-UNITS", 1_000, 1, 0, 0));
+
+        AtomicLong granted = new AtomicLong();
+        hammer(THREADS, () -> {
+            for (int i = 0; i < 200; i++) {
+                if (view.reserve("LAST-UNITS", 1) != null) {
+                    granted.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(granted.get()).isEqualTo(1_000); // 6400 attempts for 1000 units
+        assertThat(view.available("LAST-UNITS")).isZero();
+    }
+
+    @Test
+    void concurrentSettlementAndRestocksKeepTheBooksBalanced() throws Exception {
+        StockView view = view();
+        view.apply(new StockLevel("BUSY", 2_000, 1, 3, 0));
+
+        // Stand-in for the broker + inventory-service: acked reservations get consecutive offsets, and the
+        // "inventory" thread publishes levels that include everything acked so far
+        AtomicLong nextOffset = new AtomicLong();
+        AtomicLong lastPublished = new AtomicLong();
+        ConcurrentLinkedQueue<long[]> sent = new ConcurrentLinkedQueue<>(); // {offset, units}
+        Object broker = new Object();
+
+        CountDownLatch done = new CountDownLatch(THREADS);
+        Thread inventory = new Thread(() -> {
+            long revision = 1;
+            long applied = 0;
+            long consumedUnits = 0;
+            long restocked = 0;
+            while (done.getCount() > 0 || applied < nextOffset.get()) {
+                long[] order;
+                while ((order = sent.poll()) != null) {
+                    consumedUnits += order[1];
+                    applied = Math.max(applied, order[0] + 1);
+                }
+                if (revision % 50 == 0) {
+                    restocked += 100;
+                }
+                int quantity = (int) (2_000 + restocked - consumedUnits);
+                view.apply(new StockLevel("BUSY", quantity, ++revision, 3, applied));
+                lastPublished.set(quantity);
+            }
+        });
+        inventory.start();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                pool.submit(() -> {
+                    try {
+                        for (int i = 0; i < 300; i++) {
+                            StockView.Reservation reservation = view.reserve("BUSY", 2);
+                            if (reservation == null) {
+                                continue;
+                            }
+                            if (i % 10 == 0) {
+                                reservation.release(); // the send failed
+                                continue;
+                            }
+                            long offset;
+                            synchronized (broker) { // the partition hands out offsets in append order
+                                offset = nextOffset.getAndIncrement();
+                                sent.add(new long[]{offset, 2});
+                            }
+                            reservation.confirmed(3, offset);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+            inventory.join(TimeUnit.SECONDS.toMillis(30));
+            assertThat(inventory.isAlive()).isFalse();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Everything applied and settled: the view agrees with the last published quantity, nothing is held
+        assertThat(nextOffset.get()).isPositive();
+        assertThat(view.pendingReservations("BUSY")).isZero();
+        assertThat(view.available("BUSY")).isEqualTo(lastPublished.get());
+    }
+
+    @Test
+    void reservationSettlesOnceInventoryHasAppliedItsOrder() {
+        StockView view = view();
+        view.apply(new StockLevel("SETTLE", 10, 1, 0, 5));
+
+        StockView.Reservation reservation = view.reserve("SETTLE", 4);
+        assertThat(view.available("SETTLE")).isEqualTo(6);
+        reservation.confirmed(0, 7);
+
+        // Applied up to offset 7 only: the order at 7 is not in this quantity yet
+        view.apply(new StockLevel("SETTLE", 10, 2, 0, 7));
+        assertThat(view.available("SETTLE")).isEqualTo(6);
+        assertThat(view.pendingReservations("SETTLE")).isEqualTo(1);
+
+        view.apply(new StockLevel("SETTLE", 6, 3, 0, 8));
+        assertThat(view.available("SETTLE")).isEqualTo(6);
+        assertThat(view.pendingReservations("SETTLE")).isZero();
+    }
+
+    @Test
+    void staleRevisionStillSettlesButDoesNotMoveTheQuantity() {
+        StockView view = view();
+        view.apply(new StockLevel("STALE", 10, 1, 0, 0));
+        StockView.Reservation reservation = view.reserve("STALE", 2);
+        reservation.confirmed(0, 0);
+
+        // Restock published after the order was applied, arriving before the order's own level
+        view.apply(new StockLevel("STALE", 18, 3, -1, -1));
+        assertThat(view.available("STALE")).isEqualTo(14); // the order is counted twice for now: too little, not too much
+
+        view.apply(new StockLevel("STALE", 8, 2, 0, 1));
+        assertThat(view.available("STALE")).isEqualTo(16);
+        assertThat(view.pendingReservations("STALE")).isZero();
+    }
+
+    @Test
+    void ackAfterTheLevelSettlesImmediately() {
+        StockView view = view();
+        view.apply(new StockLevel("FAST", 10, 1, 2, 0));
+        StockView.Reservation reservation = view.reserve("FAST", 3);
+
+        // Inventory consumed and published before the producer callback ran
+        view.apply(new StockLevel("FAST", 7, 2, 2, 1));
+        assertThat(view.available("FAST")).isEqualTo(4);
+
+        reservation.confirmed(2, 0);
+        assertThat(view.available("FAST")).isEqualTo(7);
+        assertThat(view.pendingReservations("FAST")).isZero();
+    }
+
+    @Test
+    void releaseHandsUnitsBackOnce() {
+        StockView view = view();
+        view.apply(new StockLevel("RELEASE", 100, 1, 0, 0));
+        StockView.Reservation reservation = view.reserve("RELEASE", 30);
+        assertThat(view.available("RELEASE")).isEqualTo(70);
+
+        reservation.release();
+        reservation.release();
+        assertThat(view.available("RELEASE")).isEqualTo(100);
+        assertThat(view.reserve("RELEASE", 101)).isNull();
+    }
+
+    @Test
+    void unknownSkusAreRejectedWithoutBeingTracked() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StockView view = new StockView(meterRegistry, true);
+        view.markCaughtUp();
+        view.apply(new StockLevel("KNOWN", 10, 1, 0, 0));
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(view.reserve("NEVER-PUBLISHED-" + i, 1)).isNull();
+        }
+
+        assertThat(view.available("NEVER-PUBLISHED-0")).isZero();
+        assertThat(meterRegistry.get("orders.stock.skus").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("orders.stock.reservations").tag("result", "rejected").counter().count()).isEqualTo(1_000);
+    }
+
+    @Test
+    void disabledViewAdmitsEverything() {
+        StockView view = new StockView(new SimpleMeterRegistry(), false);
+
+        assertThat(view.isReady()).isTrue();
+        assertThat(view.reserve("ANY", 1_000_000)).isNotNull();
+        assertThat(new StockView(new SimpleMeterRegistry(), true).isReady()).isFalse(); // enabled, not caught up
+    }
+
+    private static void hammer(int threads, Runnable work) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    work.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}